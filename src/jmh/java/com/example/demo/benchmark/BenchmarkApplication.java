@@ -0,0 +1,153 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.DemoApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * The application context, without web server unless asked for, running
+ * against either an embedded H2 database or Postgres: a throwaway container,
+ * or the server given by {@code -Dbenchmark.postgres.url}.
+ */
+final class BenchmarkApplication implements AutoCloseable {
+
+    static final String H2 = "h2";
+    static final String POSTGRES = "postgres";
+
+    private static final String POSTGRES_IMAGE = "postgres:16";
+
+    /**
+     * A running Postgres to use instead of a throwaway container, for
+     * machines without Docker. Its public schema is dropped on every start,
+     * so each trial begins as empty as it would in a new container.
+     */
+    private static final String POSTGRES_URL = System.getProperty("benchmark.postgres.url");
+
+    private final PostgreSQLContainer<?> postgreSQLContainer;
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkApplication(PostgreSQLContainer<?> postgreSQLContainer,
+                                 ConfigurableApplicationContext context) {
+        this.postgreSQLContainer = postgreSQLContainer;
+        this.context = context;
+    }
+
+    static BenchmarkApplication start(String database, String... extraArgs) {
+        return start(database, false, WebApplicationType.NONE, extraArgs);
+    }
+
+    /**
+     * Starts with the embedded web server on a random port, see
+     * {@link #getLocalPort()}.
+     */
+    static BenchmarkApplication startServer(String database, String... extraArgs) {
+        String[] args = new String[extraArgs.length + 1];
+        System.arraycopy(extraArgs, 0, args, 0, extraArgs.length);
+        args[extraArgs.length] = "--server.port=0";
+        return start(database, false, WebApplicationType.SERVLET, args);
+    }
+
+    /**
+     * Starts against a schema built by the Flyway migrations, with their
+     * indexes, instead of one generated by Hibernate. Postgres only.
+     */
+    static BenchmarkApplication startMigrated(String database, String... extraArgs) {
+        if (!POSTGRES.equals(database)) {
+            throw new IllegalArgumentException("Migrations only run on " + POSTGRES);
+        }
+        return start(database, true, WebApplicationType.NONE, extraArgs);
+    }
+
+    private static BenchmarkApplication start(String database,
+                                              boolean migrated,
+                                              WebApplicationType webApplicationType,
+                                              String... extraArgs) {
+        PostgreSQLContainer<?> postgreSQLContainer = null;
+        String[] databaseArgs;
+        switch (database) {
+            case H2:
+                databaseArgs = new String[]{
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.datasource.driverClassName=org.h2.Driver",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+                };
+                break;
+            case POSTGRES:
+                String url;
+                String username;
+                String password;
+                if (POSTGRES_URL == null) {
+                    postgreSQLContainer = new PostgreSQLContainer<>(POSTGRES_IMAGE);
+                    postgreSQLContainer.start();
+                    url = postgreSQLContainer.getJdbcUrl();
+                    username = postgreSQLContainer.getUsername();
+                    password = postgreSQLContainer.getPassword();
+                } else {
+                    url = POSTGRES_URL;
+                    username = System.getProperty("benchmark.postgres.username", "postgres");
+                    password = System.getProperty("benchmark.postgres.password", "");
+                    resetSchema(url, username, password);
+                }
+                databaseArgs = new String[]{
+                        "--spring.datasource.url=" + url + (url.contains("?") ? "&" : "?") + "reWriteBatchedInserts=true",
+                        "--spring.datasource.username=" + username,
+                        "--spring.datasource.password=" + password,
+                        "--spring.datasource.driverClassName=org.postgresql.Driver",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.PostgreSQLDialect"
+                };
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown database " + database);
+        }
+
+        String[] args = new String[databaseArgs.length + extraArgs.length + 5];
+        System.arraycopy(databaseArgs, 0, args, 0, databaseArgs.length);
+        System.arraycopy(extraArgs, 0, args, databaseArgs.length, extraArgs.length);
+        int next = databaseArgs.length + extraArgs.length;
+        args[next++] = "--spring.jpa.hibernate.ddl-auto=" + (migrated ? "validate" : "create-drop");
+        args[next++] = "--spring.flyway.enabled=" + migrated;
+        args[next++] = "--spring.jpa.show-sql=false";
+        args[next++] = "--spring.main.banner-mode=off";
+        args[next] = "--logging.level.root=WARN";
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(DemoApplication.class)
+                .web(webApplicationType)
+                .run(args);
+        return new BenchmarkApplication(postgreSQLContainer, context);
+    }
+
+    private static void resetSchema(String url, String username, String password) {
+        try (Connection connection = DriverManager.getConnection(url, username, password);
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP SCHEMA IF EXISTS public CASCADE");
+            statement.execute("CREATE SCHEMA public");
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not reset the schema of " + url, e);
+        }
+    }
+
+    <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    int getLocalPort() {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        if (postgreSQLContainer != null) {
+            postgreSQLContainer.stop();
+        }
+    }
+}
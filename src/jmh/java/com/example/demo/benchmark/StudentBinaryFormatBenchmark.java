@@ -0,0 +1,86 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.student.Gender;
+import com.example.demo.student.Student;
+import com.example.demo.student.StudentJsonModule;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of student lists in each format the list endpoint
+ * can negotiate. The payload size of every format is printed during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StudentBinaryFormatBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"100", "10000"})
+    public int listSize;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private List<Student> students;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper mapper = mapper(format);
+        TypeReference<List<Student>> listOfStudents = new TypeReference<List<Student>>() {
+        };
+        writer = mapper.writerFor(listOfStudents);
+        reader = mapper.readerFor(listOfStudents);
+        students = new ArrayList<>(listSize);
+        for (long id = 1; id <= listSize; id++) {
+            students.add(new Student(id, "Student " + id, "student" + id + "@benchmark.io", Gender.values()[(int) (id % 3)]));
+        }
+        payload = encode();
+        System.out.println(format + " payload of " + listSize + " students: " + payload.length + " bytes");
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return writer.writeValueAsBytes(students);
+    }
+
+    @Benchmark
+    public List<Student> decode() throws IOException {
+        return reader.readValue(payload);
+    }
+
+    private static ObjectMapper mapper(String format) {
+        switch (format) {
+            case "json":
+                return new ObjectMapper(new JsonFactory())
+                        .registerModule(new StudentJsonModule());
+            case "cbor":
+                return new ObjectMapper(new CBORFactory())
+                        .registerModule(new StudentJsonModule())
+                        .enable(SerializationFeature.WRITE_ENUMS_USING_INDEX);
+            case "smile":
+                return new ObjectMapper(new SmileFactory())
+                        .registerModule(new StudentJsonModule())
+                        .enable(SerializationFeature.WRITE_ENUMS_USING_INDEX);
+            default:
+                throw new IllegalArgumentException("Unknown format " + format);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.student.Gender;
+import com.example.demo.student.Student;
+import com.example.demo.student.StudentService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrent single student inserts on H2 and on Postgres, through the per-request
+ * path and through group commit. Throughput and the latency distribution are
+ * both reported; rerun with {@code -t 1}, {@code -t 8} and {@code -t 64} to
+ * get their curves over the number of concurrent callers.
+ * <p>
+ * Run with {@code mvn -Pbenchmarks test-compile exec:exec "-Djmh.args=StudentGroupCommitBenchmark -t 64"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(64)
+@Fork(1)
+public class StudentGroupCommitBenchmark {
+
+    @Param({BenchmarkApplication.H2, BenchmarkApplication.POSTGRES})
+    public String database;
+
+    @Param({"false", "true"})
+    public boolean groupCommit;
+
+    private BenchmarkApplication application;
+    private StudentService studentService;
+    private final AtomicLong emails = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        application = BenchmarkApplication.start(database,
+                "--student.group-commit.enabled=" + groupCommit,
+                "--spring.datasource.hikari.maximum-pool-size=16");
+        studentService = application.getBean(StudentService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        application.close();
+    }
+
+    @Benchmark
+    public Student addStudent() {
+        long id = emails.incrementAndGet();
+        return studentService.addStudent(
+                new Student("Student " + id, "student" + id + "@benchmark.io", Gender.values()[(int) (id % 3)]));
+    }
+}
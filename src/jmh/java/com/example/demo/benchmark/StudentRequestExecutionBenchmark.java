@@ -0,0 +1,80 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.student.Gender;
+import com.example.demo.student.Student;
+import com.example.demo.student.StudentRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Student pages requested over HTTP by more concurrent clients than Tomcat
+ * has worker threads, with requests handled on Tomcat's platform-thread pool
+ * and on virtual threads. Throughput and the latency distribution are both
+ * reported. Virtual threads need Java 21, so run the forked JVM on one.
+ * <p>
+ * Run with {@code mvn -Pbenchmarks test-compile exec:exec "-Djmh.args=StudentRequestExecutionBenchmark -jvm /path/to/java21/bin/java"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(400)
+@Fork(1)
+public class StudentRequestExecutionBenchmark {
+
+    private static final int TABLE_SIZE = 10_000;
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    private BenchmarkApplication application;
+    private HttpClient httpClient;
+    private String studentsUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        application = BenchmarkApplication.startServer(BenchmarkApplication.H2,
+                "--student.execution.virtual-threads=" + virtualThreads);
+        StudentRepository studentRepository = application.getBean(StudentRepository.class);
+        List<Student> students = new ArrayList<>(TABLE_SIZE);
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            students.add(new Student("Student " + i, "student" + i + "@benchmark.io", Gender.values()[i % 3]));
+        }
+        studentRepository.insertAll(students);
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        studentsUrl = "http://localhost:" + application.getLocalPort() + "/api/v1/students?limit=20&after=";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        application.close();
+    }
+
+    /**
+     * A page from a random position, so it is not served from the first page
+     * cache.
+     */
+    @Benchmark
+    public int getStudentsAfter() throws IOException, InterruptedException {
+        long after = ThreadLocalRandom.current().nextLong(TABLE_SIZE);
+        HttpResponse<byte[]> response = httpClient.send(
+                HttpRequest.newBuilder(URI.create(studentsUrl + after)).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET students answered " + response.statusCode());
+        }
+        return response.body().length;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.student.Gender;
+import com.example.demo.student.Student;
+import com.example.demo.student.StudentPage;
+import com.example.demo.student.StudentSearch;
+import com.example.demo.student.StudentService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Student search pages against the migrated Postgres schema, for growing
+ * table sizes. Every filter matches a number of rows that stays the same or
+ * grows with the table, while a page is always {@value #PAGE_SIZE} students:
+ * with the search indexes in place the time per page should stay roughly flat
+ * as {@code tableSize} grows tenfold, where a sequential scan would grow with
+ * it. Pages are read from the middle of the table, not only the first one.
+ * <p>
+ * Run with {@code mvn -Pbenchmarks test-compile exec:exec -Djmh.args=StudentSearchBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StudentSearchBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"10000", "100000", "1000000"})
+    public int tableSize;
+
+    private BenchmarkApplication application;
+    private StudentService studentService;
+    private long middleId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        application = BenchmarkApplication.startMigrated(BenchmarkApplication.POSTGRES);
+        studentService = application.getBean(StudentService.class);
+
+        // Zero-padded names make a prefix match the same 100 students at every size.
+        JdbcTemplate jdbcTemplate = application.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("" +
+                "INSERT INTO student(id, name, email, gender) " +
+                "SELECT i, " +
+                "       'Student ' || lpad(i::text, 7, '0'), " +
+                "       'student' || i || '@Domain' || (i % 100) || '.io', " +
+                "       (ARRAY['MALE', 'FEMALE', 'OTHER'])[i % 3 + 1] " +
+                "FROM generate_series(1, ?) AS i", tableSize);
+        jdbcTemplate.execute("ANALYZE student");
+        middleId = tableSize / 2;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        application.close();
+    }
+
+    @Benchmark
+    public StudentPage<Student> searchByNamePrefix() {
+        return studentService.searchStudents(new StudentSearch("student 00042", null, null), null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public StudentPage<Student> searchByEmailDomain() {
+        return studentService.searchStudents(new StudentSearch(null, "domain42.io", null), middleId, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public StudentPage<Student> searchByGender() {
+        return studentService.searchStudents(new StudentSearch(null, null, Gender.FEMALE), middleId, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public StudentPage<Student> searchByEmailDomainAndGender() {
+        return studentService.searchStudents(new StudentSearch(null, "domain42.io", Gender.FEMALE), middleId, PAGE_SIZE);
+    }
+}
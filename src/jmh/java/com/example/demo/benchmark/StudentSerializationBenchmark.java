@@ -0,0 +1,62 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.student.Gender;
+import com.example.demo.student.Student;
+import com.example.demo.student.StudentJsonModule;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of student lists as returned by the list endpoint,
+ * with Jackson's bean serializer and with {@link StudentJsonModule}. Setup
+ * fails if the two do not produce the same bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StudentSerializationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    public int listSize;
+
+    private ObjectWriter writer;
+    private ObjectWriter fastPathWriter;
+    private List<Student> students;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        writer = new ObjectMapper().writerFor(new TypeReference<List<Student>>() {
+        });
+        fastPathWriter = new ObjectMapper().registerModule(new StudentJsonModule())
+                .writerFor(new TypeReference<List<Student>>() {
+                });
+        students = new ArrayList<>(listSize);
+        for (long id = 1; id <= listSize; id++) {
+            students.add(new Student(id, "Student " + id, "student" + id + "@benchmark.io", Gender.values()[(int) (id % 3)]));
+        }
+        if (!Arrays.equals(serializeList(), serializeListFastPath())) {
+            throw new IllegalStateException("StudentJsonModule changes the serialized bytes");
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeList() throws JsonProcessingException {
+        return writer.writeValueAsBytes(students);
+    }
+
+    @Benchmark
+    public byte[] serializeListFastPath() throws JsonProcessingException {
+        return fastPathWriter.writeValueAsBytes(students);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.student.Gender;
+import com.example.demo.student.Student;
+import com.example.demo.student.StudentRepository;
+import com.example.demo.student.StudentService;
+import com.example.demo.student.StudentView;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service hot paths against a table pre-filled with {@code tableSize}
+ * students, on H2 and on Postgres.
+ * <p>
+ * Run with {@code mvn -Pbenchmarks test-compile exec:exec -Djmh.args=StudentServiceBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StudentServiceBenchmark {
+
+    @Param({BenchmarkApplication.H2, BenchmarkApplication.POSTGRES})
+    public String database;
+
+    @Param({"1000", "10000", "100000"})
+    public int tableSize;
+
+    private BenchmarkApplication application;
+    private StudentService studentService;
+    private StudentRepository studentRepository;
+    private final AtomicLong emails = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        application = BenchmarkApplication.start(database);
+        studentService = application.getBean(StudentService.class);
+        studentRepository = application.getBean(StudentRepository.class);
+
+        List<Student> chunk = new ArrayList<>(1000);
+        for (int i = 0; i < tableSize; i++) {
+            chunk.add(newStudent());
+            if (chunk.size() == 1000) {
+                studentRepository.insertAll(chunk);
+                chunk.clear();
+            }
+        }
+        studentRepository.insertAll(chunk);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        application.close();
+    }
+
+    @Benchmark
+    public Student addStudent() {
+        return studentService.addStudent(newStudent());
+    }
+
+    @Benchmark
+    public List<StudentView> getAllStudents() {
+        return studentService.getAllStudents(null);
+    }
+
+    @Benchmark
+    public void deleteStudent(DeleteState state) {
+        studentService.deleteStudent(state.studentId);
+    }
+
+    @State(Scope.Thread)
+    public static class DeleteState {
+        Long studentId;
+
+        @Setup(Level.Invocation)
+        public void insertStudentToDelete(StudentServiceBenchmark benchmark) {
+            studentId = benchmark.studentRepository.save(benchmark.newStudent()).getId();
+        }
+    }
+
+    private Student newStudent() {
+        long id = emails.incrementAndGet();
+        return new Student("Student " + id, "student" + id + "@benchmark.io", Gender.values()[(int) (id % 3)]);
+    }
+}
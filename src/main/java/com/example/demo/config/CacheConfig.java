@@ -0,0 +1,28 @@
+package com.example.demo.config;
+
+import com.example.demo.student.StudentProperties;
+import com.example.demo.student.StudentService;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Collections;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    @Bean
+    public CacheManager cacheManager(StudentProperties studentProperties) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCacheNames(Collections.emptyList());
+        cacheManager.registerCustomCache(StudentService.STUDENTS_CACHE,
+                Caffeine.from(studentProperties.getCache().getStudentsSpec()).recordStats().build());
+        cacheManager.registerCustomCache(StudentService.STUDENT_PAGES_CACHE,
+                Caffeine.from(studentProperties.getCache().getPagesSpec()).recordStats().build());
+        return cacheManager;
+    }
+}
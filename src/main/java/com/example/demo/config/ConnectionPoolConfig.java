@@ -0,0 +1,61 @@
+package com.example.demo.config;
+
+import com.example.demo.student.StudentProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+/**
+ * Sizes Hikari pools when {@code student.pool.auto-size} is set: two
+ * connections per core plus one, as HikariCP suggests for a database on a
+ * single disk, capped by this instance's share of the database's
+ * connections.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "student.pool.auto-size", havingValue = "true")
+public class ConnectionPoolConfig {
+
+    private static final String MAXIMUM_POOL_SIZE_PROPERTY = "spring.datasource.hikari.maximum-pool-size";
+
+    @Bean
+    public static BeanPostProcessor hikariPoolSizePostProcessor(Environment environment) {
+        StudentProperties.Pool pool = Binder.get(environment)
+                .bindOrCreate("student", StudentProperties.class)
+                .getPool();
+        boolean sizeConfigured = environment.containsProperty(MAXIMUM_POOL_SIZE_PROPERTY);
+        int poolSize = poolSize(Runtime.getRuntime().availableProcessors(), pool);
+        return new OrderedBeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource && !sizeConfigured) {
+                    log.info("Sizing connection pool {} to {} connections", beanName, poolSize);
+                    ((HikariDataSource) bean).setMaximumPoolSize(poolSize);
+                }
+                return bean;
+            }
+        };
+    }
+
+    static int poolSize(int cores, StudentProperties.Pool pool) {
+        int forCores = cores * 2 + 1;
+        int forDatabase = (pool.getDatabaseMaxConnections() - pool.getReservedConnections()) / pool.getInstances();
+        return Math.max(1, Math.min(forCores, forDatabase));
+    }
+
+    /**
+     * Runs before the unordered post-processors that wrap the datasource.
+     */
+    private interface OrderedBeanPostProcessor extends BeanPostProcessor, Ordered {
+        @Override
+        default int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+}
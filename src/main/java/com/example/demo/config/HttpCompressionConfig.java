@@ -0,0 +1,23 @@
+package com.example.demo.config;
+
+import org.apache.coyote.http11.AbstractHttp11Protocol;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Tomcat does not compress responses with a strong ETag unless told
+ * otherwise, which would leave the student list uncompressed. The list's
+ * ETag already differs per {@code Accept-Encoding}, so compressing it is
+ * safe.
+ */
+@Configuration
+@ConditionalOnProperty(name = "server.compression.enabled", havingValue = "true")
+public class HttpCompressionConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<AbstractHttp11Protocol<?>> strongETagCompressionCustomizer() {
+        return protocolHandler -> protocolHandler.setNoCompressionStrongETag(false);
+    }
+}
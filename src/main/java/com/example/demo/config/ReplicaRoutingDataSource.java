@@ -0,0 +1,148 @@
+package com.example.demo.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends connections of read-only transactions to the healthy replicas in
+ * turn and everything else to the primary. Must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy},
+ * since the read-only flag of a transaction is only known once it has begun.
+ * <p>
+ * Replicas only get reads after passing a health check. For the read-your-writes
+ * window after a transaction commits on the primary, all reads of this instance
+ * stay on the primary so they see that write despite replication lag.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    static final String PRIMARY = "primary";
+    private static final int HEALTH_CHECK_TIMEOUT_SECONDS = 2;
+
+    private final List<DataSource> replicas;
+    private final long readYourWritesWindowNanos;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private volatile List<Integer> healthyReplicas = new ArrayList<>();
+    private volatile long lastWriteNanos;
+    private volatile boolean writeSeen;
+    private ScheduledExecutorService healthChecks;
+
+    public ReplicaRoutingDataSource(DataSource primary,
+                                    List<DataSource> replicas,
+                                    Duration readYourWritesWindow) {
+        this.replicas = replicas;
+        this.readYourWritesWindowNanos = readYourWritesWindow.toNanos();
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Checks the replicas now and then every {@code interval} on a daemon
+     * thread.
+     */
+    public synchronized void startHealthChecks(Duration interval) {
+        if (healthChecks != null) {
+            return;
+        }
+        healthChecks = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecks.scheduleWithFixedDelay(this::checkReplicas, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Marks each replica healthy when it hands out a valid connection.
+     */
+    public void checkReplicas() {
+        List<Integer> healthy = new ArrayList<>(replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            if (isValid(replicas.get(i))) {
+                healthy.add(i);
+            }
+        }
+        if (!healthy.equals(healthyReplicas)) {
+            log.info("Healthy replicas changed from {} to {}", healthyReplicas, healthy);
+        }
+        healthyReplicas = healthy;
+    }
+
+    public List<Integer> getHealthyReplicas() {
+        return healthyReplicas;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (readYourWritesWindowNanos > 0 && TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        lastWriteNanos = System.nanoTime();
+                        writeSeen = true;
+                    }
+                });
+            }
+            return PRIMARY;
+        }
+        if (writeSeen && System.nanoTime() - lastWriteNanos < readYourWritesWindowNanos) {
+            return PRIMARY;
+        }
+        List<Integer> healthy = healthyReplicas;
+        if (healthy.isEmpty()) {
+            return PRIMARY;
+        }
+        return healthy.get(Math.floorMod(nextReplica.getAndIncrement(), healthy.size()));
+    }
+
+    /**
+     * Stops the health checks and closes the replicas. The primary is left
+     * to its owner.
+     */
+    @Override
+    public synchronized void close() {
+        if (healthChecks != null) {
+            healthChecks.shutdownNow();
+        }
+        for (DataSource replica : replicas) {
+            if (replica instanceof Closeable) {
+                try {
+                    ((Closeable) replica).close();
+                } catch (Exception e) {
+                    log.warn("Could not close replica", e);
+                }
+            }
+        }
+    }
+
+    private static boolean isValid(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.isValid(HEALTH_CHECK_TIMEOUT_SECONDS);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
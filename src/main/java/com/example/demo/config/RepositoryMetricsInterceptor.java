@@ -0,0 +1,64 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Times every repository method call as {@code student.repository.query} and
+ * records the size of collection results as {@code student.repository.rows},
+ * both tagged with the repository method name. The meters of successful calls
+ * are looked up once per method and kept; failures build theirs per call.
+ */
+public class RepositoryMetricsInterceptor implements MethodInterceptor {
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final ConcurrentMap<Method, Timer> queryTimers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Method, DistributionSummary> rowSummaries = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsInterceptor(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null) {
+            return invocation.proceed();
+        }
+        Method method = invocation.getMethod();
+        Timer.Sample sample = Timer.start(registry);
+        Object result;
+        try {
+            result = invocation.proceed();
+        } catch (Throwable e) {
+            sample.stop(queryTimer(registry, method, e.getClass().getSimpleName()));
+            throw e;
+        }
+        sample.stop(queryTimers.computeIfAbsent(method, key -> queryTimer(registry, key, "none")));
+        if (result instanceof Collection) {
+            rowSummaries.computeIfAbsent(method, key -> DistributionSummary.builder("student.repository.rows")
+                            .description("Rows returned per repository call")
+                            .tag("method", key.getName())
+                            .register(registry))
+                    .record(((Collection<?>) result).size());
+        }
+        return result;
+    }
+
+    private static Timer queryTimer(MeterRegistry registry, Method method, String exception) {
+        return Timer.builder("student.repository.query")
+                .description("Time spent in repository calls")
+                .tag("method", method.getName())
+                .tag("exception", exception)
+                .register(registry);
+    }
+}
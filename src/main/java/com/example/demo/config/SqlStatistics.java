@@ -0,0 +1,100 @@
+package com.example.demo.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Counts the SQL statements, the time spent executing them and the JDBC
+ * connections acquired by the current thread between {@link #start()} and
+ * {@link #stop()}. Fed by {@link SqlStatisticsListener}; nothing is recorded
+ * on threads that did not start a recording.
+ */
+public class SqlStatistics {
+
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+    private final SqlStatistics previous;
+    private final List<String> statements = new ArrayList<>();
+    private long databaseNanos;
+    private int connections;
+
+    private SqlStatistics(SqlStatistics previous) {
+        this.previous = previous;
+    }
+
+    /**
+     * Starts recording on the current thread. Recordings may be nested, the
+     * outer one resumes when the inner one is stopped.
+     */
+    public static SqlStatistics start() {
+        SqlStatistics statistics = new SqlStatistics(CURRENT.get());
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    /**
+     * Stops the recording started last on the current thread.
+     *
+     * @return what was recorded, or {@code null} if nothing was being recorded
+     */
+    public static SqlStatistics stop() {
+        SqlStatistics statistics = CURRENT.get();
+        if (statistics == null) {
+            return null;
+        }
+        if (statistics.previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(statistics.previous);
+            statistics.previous.add(statistics);
+        }
+        return statistics;
+    }
+
+    static SqlStatistics current() {
+        return CURRENT.get();
+    }
+
+    void recordStatement(String sql, long nanos) {
+        statements.add(sql);
+        databaseNanos += nanos;
+    }
+
+    void recordConnection() {
+        connections++;
+    }
+
+    private void add(SqlStatistics nested) {
+        statements.addAll(nested.statements);
+        databaseNanos += nested.databaseNanos;
+        connections += nested.connections;
+    }
+
+    public int getStatementCount() {
+        return statements.size();
+    }
+
+    /**
+     * The executed statements in order. A JDBC batch counts as one statement.
+     */
+    public List<String> getStatements() {
+        return Collections.unmodifiableList(statements);
+    }
+
+    public Duration getDatabaseTime() {
+        return Duration.ofNanos(databaseNanos);
+    }
+
+    public int getConnectionCount() {
+        return connections;
+    }
+
+    @Override
+    public String toString() {
+        return statements.size() + " statements, "
+                + connections + " connections, "
+                + getDatabaseTime().toMillis() + " ms in database";
+    }
+}
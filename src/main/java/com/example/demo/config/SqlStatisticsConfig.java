@@ -0,0 +1,37 @@
+package com.example.demo.config;
+
+import com.example.demo.student.StudentProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Collects per-request SQL statistics in place of {@code spring.jpa.show-sql}.
+ * Statements slower than {@code student.sql.slow-query-threshold} are logged
+ * by {@link SqlStatisticsListener}; set
+ * {@code logging.level.com.example.demo.config.SqlStatisticsFilter=debug} to
+ * log the statistics of every request.
+ */
+@Configuration
+public class SqlStatisticsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatisticsHibernatePropertiesCustomizer(StudentProperties studentProperties) {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER,
+                    SqlStatisticsListener.class.getName());
+            hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR,
+                    new SqlStatisticsListener.StatementRecorder(studentProperties.getSql().getSlowQueryThreshold()));
+        };
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public SqlStatisticsFilter sqlStatisticsFilter(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new SqlStatisticsFilter(meterRegistry);
+    }
+}
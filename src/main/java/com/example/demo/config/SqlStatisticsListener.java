@@ -0,0 +1,101 @@
+package com.example.demo.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.SessionEventListener;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hibernate creates one of these per session, see
+ * {@link SqlStatisticsConfig}. Times every statement and batch execution,
+ * logs the slow ones and adds them to the thread's {@link SqlStatistics}.
+ * The SQL of a statement, and the threshold it is slow above, are handed
+ * over by the {@link StatementRecorder}, which Hibernate calls when the
+ * statement is prepared, and forgotten once it has run or the session ends.
+ */
+@Slf4j
+public class SqlStatisticsListener extends BaseSessionEventListener {
+
+    private static final ThreadLocal<PreparedSql> PREPARED_SQL = new ThreadLocal<>();
+
+    private long executionStart;
+
+    @Override
+    public void jdbcConnectionAcquisitionEnd() {
+        SqlStatistics statistics = SqlStatistics.current();
+        if (statistics != null) {
+            statistics.recordConnection();
+        }
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executionStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        executed(System.nanoTime() - executionStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        executionStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        executed(System.nanoTime() - executionStart);
+    }
+
+    @Override
+    public void end() {
+        PREPARED_SQL.remove();
+    }
+
+    private void executed(long nanos) {
+        PreparedSql prepared = PREPARED_SQL.get();
+        PREPARED_SQL.remove();
+        String sql = prepared == null ? null : prepared.sql;
+        if (prepared != null && nanos >= prepared.slowQueryThresholdNanos) {
+            log.warn("Slow SQL statement took {} ms: {}", TimeUnit.NANOSECONDS.toMillis(nanos), sql);
+        }
+        SqlStatistics statistics = SqlStatistics.current();
+        if (statistics != null) {
+            statistics.recordStatement(sql, nanos);
+        }
+    }
+
+    /**
+     * Remembers the SQL last prepared on the current thread for the
+     * {@link SessionEventListener} callbacks, which do not get to see it,
+     * along with the slow query threshold it was configured with.
+     */
+    public static class StatementRecorder implements StatementInspector {
+
+        private final long slowQueryThresholdNanos;
+
+        public StatementRecorder(Duration slowQueryThreshold) {
+            this.slowQueryThresholdNanos = slowQueryThreshold.toNanos();
+        }
+
+        @Override
+        public String inspect(String sql) {
+            PREPARED_SQL.set(new PreparedSql(sql, slowQueryThresholdNanos));
+            return sql;
+        }
+    }
+
+    private static class PreparedSql {
+        final String sql;
+        final long slowQueryThresholdNanos;
+
+        PreparedSql(String sql, long slowQueryThresholdNanos) {
+            this.sql = sql;
+            this.slowQueryThresholdNanos = slowQueryThresholdNanos;
+        }
+    }
+}
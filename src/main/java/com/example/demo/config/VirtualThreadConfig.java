@@ -0,0 +1,66 @@
+package com.example.demo.config;
+
+import com.example.demo.student.StudentProperties;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs request handling on virtual threads when
+ * {@code student.execution.virtual-threads} is set. The application is built
+ * for Java 17, so the virtual thread executor is looked up at runtime and
+ * startup fails on JVMs older than 21. Connections are then bounded by
+ * {@link BoundedDataSource} instead of by the size of Tomcat's thread pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "student.execution.virtual-threads", havingValue = "true")
+public class VirtualThreadConfig {
+
+    private static final String DATA_SOURCE_BEAN_NAME = "dataSource";
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    @Bean
+    public static BeanPostProcessor boundedDataSourcePostProcessor(Environment environment) {
+        StudentProperties.Execution execution = Binder.get(environment)
+                .bindOrCreate("student", StudentProperties.class)
+                .getExecution();
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // only the datasource the application uses, not the pools behind it
+                if (bean instanceof DataSource && !(bean instanceof BoundedDataSource)
+                        && DATA_SOURCE_BEAN_NAME.equals(beanName)) {
+                    return new BoundedDataSource((DataSource) bean,
+                            execution.getMaxConcurrentConnections(),
+                            execution.getConnectionAcquireTimeout());
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(
+                    "student.execution.virtual-threads needs Java 21 or later, running on "
+                            + System.getProperty("java.version"), e);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.demo.config;
+
+import com.example.demo.student.StudentProperties;
+import com.example.demo.student.StudentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+@ConditionalOnProperty(name = "student.warm-up.enabled", havingValue = "true")
+public class WarmUpConfig {
+
+    @Bean
+    public WarmUpRunner warmUpRunner(DataSource dataSource,
+                                     StudentRepository studentRepository,
+                                     ObjectMapper objectMapper,
+                                     StudentProperties studentProperties) {
+        return new WarmUpRunner(dataSource, studentRepository, objectMapper,
+                studentProperties.getWarmUp().getIterations());
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.demo.config;
+
+import com.example.demo.student.StudentRepository;
+import com.example.demo.student.StudentView;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opens every connection of the pool and runs the student queries and their
+ * serialization a number of times, so connection setup, Hibernate's query
+ * plans, server-side prepared statements and the JIT are warm before the
+ * first request. Application runners complete before Spring Boot reports
+ * the application ready to accept traffic. A failed warm-up is logged and
+ * does not stop the application.
+ */
+@Slf4j
+public class WarmUpRunner implements ApplicationRunner {
+
+    private static final String WARM_UP_EMAIL = "warm-up@example.invalid";
+    private static final int PAGE_SIZE = 100;
+    private static final Set<String> ALL_FIELDS = new LinkedHashSet<>(StudentView.FIELDS);
+
+    private final DataSource dataSource;
+    private final StudentRepository studentRepository;
+    private final ObjectMapper objectMapper;
+    private final int iterations;
+
+    public WarmUpRunner(DataSource dataSource,
+                        StudentRepository studentRepository,
+                        ObjectMapper objectMapper,
+                        int iterations) {
+        this.dataSource = dataSource;
+        this.studentRepository = studentRepository;
+        this.objectMapper = objectMapper;
+        this.iterations = iterations;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        try {
+            int connections = openConnections();
+            for (int i = 0; i < iterations; i++) {
+                runQueries();
+            }
+            log.info("Warm-up opened {} connections and ran the student queries {} times in {} ms",
+                    connections, iterations, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (Exception e) {
+            log.warn("Warm-up failed, the first requests will be slower", e);
+        }
+    }
+
+    private int openConnections() throws SQLException {
+        if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+            return 0;
+        }
+        HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+        List<Connection> connections = new ArrayList<>(pool.getMaximumPoolSize());
+        try {
+            while (connections.size() < pool.getMaximumPoolSize()) {
+                connections.add(pool.getConnection());
+            }
+        } finally {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+        }
+        return connections.size();
+    }
+
+    private void runQueries() throws IOException {
+        List<StudentView> students = studentRepository.findViewsAfter(ALL_FIELDS, null, PAGE_SIZE);
+        studentRepository.findViewsAfter(ALL_FIELDS, 0L, PAGE_SIZE);
+        studentRepository.findById(0L);
+        studentRepository.existsById(0L);
+        studentRepository.selectExistsEmail(WARM_UP_EMAIL);
+        studentRepository.selectExistingEmails(Collections.singleton(WARM_UP_EMAIL));
+        objectMapper.writeValueAsBytes(students);
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.demo.student;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bloom filter of the emails stored in the student table, consulted before
+ * querying the database for an email. A negative answer means the email is
+ * certainly not taken and the query can be skipped.
+ * <p>
+ * The filter is built in the background once the application is ready; until
+ * then every email is reported as possibly taken. Deleted emails cannot be
+ * removed from a Bloom filter, so the filter is rebuilt once deletions reach
+ * a fraction of its content. Emails inserted while a rebuild runs may be
+ * missed by it; the unique constraint on email still rejects them.
+ */
+@Slf4j
+@Component
+public class KnownEmailFilter implements MeterBinder {
+
+    private final StudentRepository studentRepository;
+    private final StudentProperties.EmailFilter properties;
+
+    private volatile EmailBloomFilter filter;
+    private volatile EmailBloomFilter building;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final AtomicLong deletionsSinceBuild = new AtomicLong();
+
+    private final AtomicLong negatives = new AtomicLong();
+    private final AtomicLong positives = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    public KnownEmailFilter(StudentRepository studentRepository,
+                            StudentProperties studentProperties) {
+        this.studentRepository = studentRepository;
+        this.properties = studentProperties.getEmailFilter();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildInBackground() {
+        if (properties.isEnabled()) {
+            rebuildInBackground();
+        }
+    }
+
+    /**
+     * @return {@code false} if the email is certainly not in the database
+     */
+    public boolean mightContain(String email) {
+        EmailBloomFilter current = filter;
+        if (current == null || current.mightContain(email)) {
+            positives.incrementAndGet();
+            return true;
+        }
+        negatives.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Records that the database was queried after {@link #mightContain(String)}
+     * answered {@code true} and the email turned out not to be taken.
+     */
+    public void recordFalsePositive() {
+        falsePositives.incrementAndGet();
+    }
+
+    public void add(String email) {
+        EmailBloomFilter current = filter;
+        if (current != null) {
+            current.put(email);
+        }
+        EmailBloomFilter next = building;
+        if (next != null) {
+            next.put(email);
+        }
+    }
+
+    public void recordDeletions(long count) {
+        EmailBloomFilter current = filter;
+        if (current == null) {
+            return;
+        }
+        long deletions = deletionsSinceBuild.addAndGet(count);
+        if (deletions > current.approximateElementCount() * properties.getRebuildAfterDeletedFraction()) {
+            rebuildInBackground();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("student.email.filter.size", this,
+                        knownEmails -> knownEmails.filter == null ? 0 : knownEmails.filter.approximateElementCount())
+                .description("Approximate number of emails in the filter")
+                .register(registry);
+        Gauge.builder("student.email.filter.bits", this,
+                        knownEmails -> knownEmails.filter == null ? 0 : knownEmails.filter.bitSize())
+                .description("Size of the filter in bits")
+                .register(registry);
+        Gauge.builder("student.email.filter.false.positive.rate", this,
+                        knownEmails -> knownEmails.filter == null ? 1 : knownEmails.filter.expectedFalsePositiveRate())
+                .description("Expected false positive rate given the bits set")
+                .register(registry);
+        FunctionCounter.builder("student.email.filter.checks", negatives, AtomicLong::get)
+                .tag("result", "negative")
+                .register(registry);
+        FunctionCounter.builder("student.email.filter.checks", positives, AtomicLong::get)
+                .tag("result", "positive")
+                .register(registry);
+        FunctionCounter.builder("student.email.filter.checks", falsePositives, AtomicLong::get)
+                .tag("result", "false-positive")
+                .register(registry);
+    }
+
+    private void rebuildInBackground() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        Thread thread = new Thread(this::rebuild, "email-filter-build");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void rebuild() {
+        try {
+            EmailBloomFilter next = new EmailBloomFilter(
+                    properties.getExpectedInsertions(),
+                    properties.getFalsePositiveProbability());
+            building = next;
+            long deletionsBefore = deletionsSinceBuild.get();
+            long started = System.nanoTime();
+            studentRepository.forEachEmail(next::put);
+            filter = next;
+            deletionsSinceBuild.addAndGet(-deletionsBefore);
+            log.info("Email filter built with about {} emails in {} ms",
+                    next.approximateElementCount(), (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("Could not build email filter, emails are checked against the database", e);
+        } finally {
+            building = null;
+            rebuilding.set(false);
+        }
+    }
+}
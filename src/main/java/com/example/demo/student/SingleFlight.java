@@ -0,0 +1,101 @@
+package com.example.demo.student;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key: the first caller computes the
+ * value while the ones arriving before it finishes wait for it and get the
+ * same value, or the same exception, instead of computing it again. Nothing
+ * is kept once the computation finishes, so a later call computes afresh;
+ * keys have to change whenever the value may, like an ETag does.
+ * <p>
+ * Publishes {@code student.single-flight.calls}, tagged with the flight name
+ * and with {@code result} {@code executed} or {@code shared}, and the share
+ * of calls served by another caller's computation as
+ * {@code student.single-flight.coalescing.ratio}.
+ */
+public class SingleFlight<K, V> implements MeterBinder {
+
+    private final String name;
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+
+    public SingleFlight(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("student.single-flight.calls", executed, LongAdder::doubleValue)
+                .description("Calls that computed their value")
+                .tag("flight", name)
+                .tag("result", "executed")
+                .register(registry);
+        FunctionCounter.builder("student.single-flight.calls", shared, LongAdder::doubleValue)
+                .description("Calls that got the value computed for a concurrent identical call")
+                .tag("flight", name)
+                .tag("result", "shared")
+                .register(registry);
+        Gauge.builder("student.single-flight.coalescing.ratio", this, SingleFlight::coalescingRatio)
+                .description("Share of calls served by a concurrent identical call since startup")
+                .tag("flight", name)
+                .register(registry);
+    }
+
+    /**
+     * Returns the value computed by {@code supplier}, or by the supplier of a
+     * concurrent call with an equal key that is still running.
+     */
+    public V execute(K key, Supplier<V> supplier) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, created);
+        if (running != null) {
+            shared.increment();
+            return await(running);
+        }
+        executed.increment();
+        try {
+            V value = supplier.get();
+            created.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    public double coalescingRatio() {
+        double total = executed.sum() + shared.sum();
+        return total == 0 ? 0 : shared.sum() / total;
+    }
+
+    private static <V> V await(CompletableFuture<V> running) {
+        try {
+            return running.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a concurrent call", e);
+        }
+    }
+}
@@ -16,11 +16,17 @@ import javax.validation.constraints.NotNull;
 @Entity
 @Table
 public class Student {
+    /**
+     * Ids handed out per {@code student_sequence} round-trip. Must match the
+     * sequence's INCREMENT BY, see {@code db/migration/V2__pooled_student_sequence.sql}.
+     */
+    static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
     @SequenceGenerator(
             name = "student_sequence",
             sequenceName = "student_sequence",
-            allocationSize = 1
+            allocationSize = Student.ID_ALLOCATION_SIZE
     )
     @GeneratedValue(
             generator = "student_sequence",
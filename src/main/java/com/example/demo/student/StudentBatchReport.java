@@ -0,0 +1,31 @@
+package com.example.demo.student;
+
+import lombok.*;
+
+import java.util.List;
+
+@ToString
+@Getter
+@Setter
+@EqualsAndHashCode
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentBatchReport {
+    private List<Student> inserted;
+    private List<RejectedStudent> rejected;
+
+    @ToString
+    @Getter
+    @Setter
+    @EqualsAndHashCode
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RejectedStudent {
+        /**
+         * Position of the student in the submitted list.
+         */
+        private int index;
+        private String email;
+        private String reason;
+    }
+}
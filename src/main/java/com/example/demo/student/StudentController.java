@@ -1,21 +1,139 @@
 package com.example.demo.student;
 
-import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
+@Profile("!reactive")
 @RestController
 @RequestMapping(path = "api/v1/students")
-@AllArgsConstructor
 public class StudentController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
     private final StudentService studentService;
+    private final ObjectMapper objectMapper;
+    private final SingleFlight<String, ResponseEntity<?>> studentListFlight = new SingleFlight<>("student-list");
+
+    public StudentController(StudentService studentService,
+                             ObjectMapper objectMapper,
+                             ObjectProvider<MeterRegistry> meterRegistry) {
+        this.studentService = studentService;
+        this.objectMapper = objectMapper;
+        meterRegistry.ifAvailable(studentListFlight::bindTo);
+    }
 
+    /**
+     * Returns one keyset page of students ordered by id. When more students
+     * follow, the id to pass as {@code after} for the next page is sent in the
+     * {@value #NEXT_CURSOR_HEADER} header. The whole table is only returned
+     * when explicitly asked for with {@code unpaged=true}. Only the fields
+     * listed in {@code fields}, for instance {@code fields=id,email}, are
+     * selected and sent; the id is always sent.
+     * <p>
+     * The response carries an ETag derived from the student table version, so
+     * a poll with a matching {@code If-None-Match} gets a 304 without querying
+     * the database. Writes made by other instances or outside the application
+     * do not change the version.
+     * <p>
+     * Identical requests arriving while the list is being read, as when many
+     * dashboards refresh at once, share that read instead of each querying the
+     * database. Only requests for the same table version, query parameters
+     * and {@code Accept} header are coalesced. JSON lists are serialized once and the
+     * bytes shared by all of them.
+     */
     @GetMapping
-    public List<Student> getAllStudents() {
-        return studentService.getAllStudents();
+    public ResponseEntity<?> getAllStudents(
+            @RequestParam(name = "after", required = false) Long after,
+            @RequestParam(name = "limit", defaultValue = "100") int limit,
+            @RequestParam(name = "unpaged", defaultValue = "false") boolean unpaged,
+            @RequestParam(name = "fields", required = false) Set<String> fields,
+            WebRequest request) {
+        long version = studentService.getStudentsVersion();
+        // also sets the ETag header when the list has to be sent
+        if (request.checkNotModified(studentsETag(version, after, limit, unpaged, fields, request))) {
+            return null;
+        }
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        String key = version + ":" + after + ":" + limit + ":" + unpaged + ":" + fields + ":" + accept;
+        boolean json = prefersJson(accept);
+        return studentListFlight.execute(key, () -> studentList(after, limit, unpaged, fields, json));
+    }
+
+    /**
+     * Returns one keyset page of the students whose name starts with
+     * {@code namePrefix}, whose email is at {@code emailDomain} and who have
+     * the given {@code gender}, ignoring case for the name and the domain.
+     * Omitted filters match every student. Paging works as for
+     * {@link #getAllStudents}.
+     */
+    @GetMapping(path = "search")
+    public ResponseEntity<List<Student>> searchStudents(
+            @RequestParam(name = "namePrefix", required = false) String namePrefix,
+            @RequestParam(name = "emailDomain", required = false) String emailDomain,
+            @RequestParam(name = "gender", required = false) Gender gender,
+            @RequestParam(name = "after", required = false) Long after,
+            @RequestParam(name = "limit", defaultValue = "100") int limit) {
+        StudentPage<Student> page = studentService.searchStudents(
+                new StudentSearch(namePrefix, emailDomain, gender), after, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor().toString());
+        }
+        return response.body(page.getStudents());
+    }
+
+    @GetMapping(path = "{studentId}")
+    public Student getStudent(
+            @PathVariable("studentId") Long studentId) {
+        return studentService.getStudent(studentId);
+    }
+
+    /**
+     * Streams every student as newline-delimited JSON, one student per line,
+     * straight from a database cursor without building the list in memory.
+     */
+    @GetMapping(path = "export", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportStudents() {
+        ObjectWriter writer = objectMapper.writerFor(Student.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                studentService.exportStudents(student -> {
+                    try {
+                        writer.writeValue(generator, student);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(body);
     }
 
     @PostMapping
@@ -23,9 +141,89 @@ public class StudentController {
         return studentService.addStudent(student);
     }
 
+    @PostMapping(path = "batch")
+    public StudentBatchReport addStudents(
+            @RequestBody List<Student> students,
+            @RequestParam(name = "chunkSize", required = false) Integer chunkSize) {
+        return studentService.addStudents(students, chunkSize);
+    }
+
     @DeleteMapping(path = "{studentId}")
     public void deleteStudent(
             @PathVariable("studentId") Long studentId) {
         studentService.deleteStudent(studentId);
     }
+
+    @DeleteMapping(path = "batch")
+    public int deleteStudents(@RequestBody List<Long> studentIds) {
+        return studentService.deleteStudents(studentIds);
+    }
+
+    private ResponseEntity<?> studentList(Long after, int limit, boolean unpaged, Set<String> fields, boolean json) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT);
+        List<StudentView> students;
+        if (unpaged) {
+            students = studentService.getAllStudents(fields);
+        } else {
+            StudentPage<StudentView> page = studentService.getStudentsAfter(after, limit, fields);
+            if (page.getNextCursor() != null) {
+                response.header(NEXT_CURSOR_HEADER, page.getNextCursor().toString());
+            }
+            students = page.getStudents();
+        }
+        if (!json) {
+            return response.body(students);
+        }
+        try {
+            return response.contentType(MediaType.APPLICATION_JSON)
+                    .body(objectMapper.writeValueAsBytes(students));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Whether content negotiation would pick JSON, the default for clients
+     * that accept anything. Other formats go through the message converters.
+     */
+    private static boolean prefersJson(String accept) {
+        if (accept == null) {
+            return true;
+        }
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        MediaType.sortBySpecificityAndQuality(mediaTypes);
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.getQualityValue() == 0) {
+                continue;
+            }
+            if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return true;
+            }
+            if (mediaType.isCompatibleWith(MediaType.APPLICATION_CBOR)
+                    || mediaType.isCompatibleWith(MediaType.parseMediaType("application/x-jackson-smile"))) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The table version is read before the students, so a write in between
+     * makes the ETag stale rather than the body. Every representation of the
+     * same list, by query parameters, format and encoding, gets its own tag.
+     */
+    private static String studentsETag(long version, Long after, int limit, boolean unpaged,
+                                       Set<String> fields, WebRequest request) {
+        int representation = Objects.hash(after, limit, unpaged, fields,
+                request.getHeader(HttpHeaders.ACCEPT),
+                request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        return "\"" + version + "-" + Integer.toHexString(representation) + "\"";
+    }
 }
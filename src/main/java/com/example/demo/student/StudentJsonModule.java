@@ -0,0 +1,38 @@
+package com.example.demo.student;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Serializes students with {@link StudentSerializer} and the lists of
+ * {@link StudentView} with {@link StudentViewSerializer}. The bean serializer
+ * Jackson builds is kept whenever the mapper is configured in a way the fast
+ * path does not reproduce, such as sorted properties or a different null
+ * handling, so the output never changes.
+ */
+@Component
+public class StudentJsonModule extends SimpleModule {
+
+    public StudentJsonModule() {
+        super(StudentJsonModule.class.getSimpleName());
+        setSerializerModifier(new BeanSerializerModifier() {
+            @Override
+            public JsonSerializer<?> modifySerializer(SerializationConfig config,
+                                                      BeanDescription beanDesc,
+                                                      JsonSerializer<?> serializer) {
+                if (beanDesc.getBeanClass() == Student.class && StudentSerializer.canReplace(serializer)) {
+                    return new StudentSerializer();
+                }
+                if (beanDesc.getBeanClass() == StudentView.class
+                        && StudentViewSerializer.canReplace(config, beanDesc, serializer)) {
+                    return new StudentViewSerializer();
+                }
+                return serializer;
+            }
+        });
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.demo.student;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+@ToString
+@Getter
+@EqualsAndHashCode
+@AllArgsConstructor
+public class StudentPage<T> {
+    private final List<T> students;
+    /**
+     * Id of the last student of this page, to be passed as {@code after}
+     * to fetch the next one. {@code null} when there are no more students.
+     */
+    private final Long nextCursor;
+}
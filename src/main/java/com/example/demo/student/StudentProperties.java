@@ -0,0 +1,204 @@
+package com.example.demo.student;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "student")
+public class StudentProperties {
+
+    /**
+     * How {@code addStudent} makes sure an email is not taken.
+     */
+    private InsertMode insertMode = InsertMode.CHECK_THEN_INSERT;
+
+    private final Batch batch = new Batch();
+
+    private final EmailFilter emailFilter = new EmailFilter();
+
+    private final Cache cache = new Cache();
+
+    private final Execution execution = new Execution();
+
+    private final Sql sql = new Sql();
+
+    private final Replicas replicas = new Replicas();
+
+    private final Pool pool = new Pool();
+
+    private final WarmUp warmUp = new WarmUp();
+
+    private final Startup startup = new Startup();
+
+    private final GroupCommit groupCommit = new GroupCommit();
+
+    public enum InsertMode {
+        /**
+         * Query for the email first, then insert. Costs an extra round-trip,
+         * the unique constraint still catches concurrent inserts.
+         */
+        CHECK_THEN_INSERT,
+        /**
+         * Insert straight away and rely on the unique constraint on email.
+         */
+        INSERT
+    }
+
+    @Getter
+    @Setter
+    public static class Batch {
+        /**
+         * Students whose emails are checked with one query and inserted in
+         * one transaction by the batch endpoint, unless the request says
+         * otherwise.
+         */
+        private int chunkSize = 500;
+    }
+
+    @Getter
+    @Setter
+    public static class EmailFilter {
+        /**
+         * Whether to keep a Bloom filter of known emails in front of the
+         * email existence query.
+         */
+        private boolean enabled = true;
+        private long expectedInsertions = 1_000_000;
+        private double falsePositiveProbability = 0.01;
+        /**
+         * Rebuild the filter once this fraction of its emails was deleted.
+         */
+        private double rebuildAfterDeletedFraction = 0.1;
+    }
+
+    @Getter
+    @Setter
+    public static class Cache {
+        /**
+         * Caffeine spec of the cache of students looked up by id.
+         */
+        private String studentsSpec = "maximumSize=10000,expireAfterWrite=10m";
+        /**
+         * Caffeine spec of the cache of first pages of the student list. Kept
+         * short since writes made by other instances do not invalidate it.
+         */
+        private String pagesSpec = "maximumSize=100,expireAfterWrite=30s";
+    }
+
+    @Getter
+    @Setter
+    public static class Execution {
+        /**
+         * Whether to handle requests on virtual threads. Needs Java 21.
+         */
+        private boolean virtualThreads = false;
+        /**
+         * Connections that may be in use at the same time when requests run
+         * on virtual threads. Should not exceed the connection pool size.
+         */
+        private int maxConcurrentConnections = 10;
+        private Duration connectionAcquireTimeout = Duration.ofSeconds(30);
+    }
+
+    @Getter
+    @Setter
+    public static class Sql {
+        /**
+         * Statements running longer than this are logged with their SQL.
+         */
+        private Duration slowQueryThreshold = Duration.ofMillis(200);
+    }
+
+    @Getter
+    @Setter
+    public static class Replicas {
+        /**
+         * JDBC URLs of read replicas of the primary datasource, reached with
+         * the primary's credentials. Read-only transactions are spread over
+         * them when set.
+         */
+        private List<String> urls = new ArrayList<>();
+        private Duration healthCheckInterval = Duration.ofSeconds(5);
+        /**
+         * How long all reads stay on the primary after a write committed on
+         * this instance. Keep it above the replication lag: a read sent to a
+         * lagging replica right after a write would be cached as the first
+         * page of the new table version. Zero sends reads to the replicas
+         * right away.
+         */
+        private Duration readYourWritesWindow = Duration.ofSeconds(5);
+    }
+
+    @Getter
+    @Setter
+    public static class Pool {
+        /**
+         * Whether to size the connection pool from the available cores and
+         * the database's connection limit, unless
+         * {@code spring.datasource.hikari.maximum-pool-size} is set.
+         */
+        private boolean autoSize = false;
+        /**
+         * The database's {@code max_connections}.
+         */
+        private int databaseMaxConnections = 100;
+        /**
+         * Connections the database keeps for superusers and maintenance.
+         */
+        private int reservedConnections = 3;
+        /**
+         * Instances of the application sharing the database.
+         */
+        private int instances = 1;
+    }
+
+    @Getter
+    @Setter
+    public static class WarmUp {
+        /**
+         * Whether to open the pool's connections and run the student queries
+         * before the application reports itself ready.
+         */
+        private boolean enabled = false;
+        private int iterations = 200;
+    }
+
+    @Getter
+    @Setter
+    public static class Startup {
+        /**
+         * Whether to exit once the application is ready, to record a class
+         * data sharing archive.
+         */
+        private boolean exitWhenReady = false;
+    }
+
+    @Getter
+    @Setter
+    public static class GroupCommit {
+        /**
+         * Whether single student inserts made concurrently are checked and
+         * inserted together, in one transaction.
+         */
+        private boolean enabled = false;
+        private int maxBatchSize = 100;
+        /**
+         * How long the first student of a batch may wait for others to join.
+         */
+        private Duration maxDelay = Duration.ofMillis(2);
+        /**
+         * How long writing a batch may take before the students waiting for
+         * it give up, on top of the delay. Keep it above the transaction
+         * timeout, {@code spring.transaction.default-timeout}.
+         */
+        private Duration writeTimeout = Duration.ofSeconds(30);
+    }
+}
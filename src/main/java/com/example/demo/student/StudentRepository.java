@@ -1,17 +1,49 @@
 package com.example.demo.student;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 
 @Repository
 public interface StudentRepository
-        extends JpaRepository<Student, Long> {
+        extends JpaRepository<Student, Long>, StudentRepositoryCustom {
+    @Query(value = "" +
+            "SELECT EXISTS (" +
+            "SELECT 1 FROM student s " +
+            "WHERE s.email = ?1" +
+            ")",
+            nativeQuery = true
+    )
+    @Transactional(readOnly = true)
+    Boolean selectExistsEmail(String email);
+
     @Query("" +
-            "SELECT CASE WHEN COUNT(s) > 0 THEN " +
-            "TRUE ELSE FALSE END " +
+            "SELECT s.email " +
             "FROM Student s " +
-            "WHERE s.email = ?1"
+            "WHERE s.email IN ?1"
     )
-    Boolean selectExistsEmail(String email);
+    @Transactional(readOnly = true)
+    Set<String> selectExistingEmails(Collection<String> emails);
+
+    @Modifying
+    @Transactional
+    @Query("" +
+            "DELETE FROM Student s " +
+            "WHERE s.id = ?1"
+    )
+    int deleteStudentById(Long id);
+
+    @Modifying
+    @Transactional
+    @Query("" +
+            "DELETE FROM Student s " +
+            "WHERE s.id IN ?1"
+    )
+    int deleteStudentsByIdIn(Collection<Long> ids);
 }
@@ -0,0 +1,48 @@
+package com.example.demo.student;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+public interface StudentRepositoryCustom {
+
+    /**
+     * Reads every student in id order through a server-side cursor and hands
+     * them one by one to {@code action}. Students are detached once consumed,
+     * so memory stays constant whatever the table size.
+     */
+    void forEachStudent(Consumer<Student> action);
+
+    /**
+     * Reads every student email through a server-side cursor.
+     */
+    void forEachEmail(Consumer<String> action);
+
+    /**
+     * Inserts all students in one transaction using JDBC batches of
+     * {@code hibernate.jdbc.batch_size} rows. Ids set by callers are ignored,
+     * every student gets a fresh one from the pooled sequence.
+     */
+    List<Student> insertAll(Collection<Student> students);
+
+    /**
+     * Reads the given {@link StudentView#FIELDS} of every student in id order,
+     * selecting only their columns and the id.
+     */
+    List<StudentView> findAllViews(Set<String> fields);
+
+    /**
+     * Reads the given {@link StudentView#FIELDS} of at most {@code limit}
+     * students with an id greater than {@code after}, or from the first one
+     * when {@code after} is {@code null}, in id order.
+     */
+    List<StudentView> findViewsAfter(Set<String> fields, Long after, int limit);
+
+    /**
+     * Returns at most {@code limit} students matching {@code search} with an
+     * id greater than {@code after}, in id order. Each filter is written as
+     * the expression its index in {@code db/migration} is built on.
+     */
+    List<Student> search(StudentSearch search, Long after, int limit);
+}
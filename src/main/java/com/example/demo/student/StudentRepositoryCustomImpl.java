@@ -0,0 +1,153 @@
+package com.example.demo.student;
+
+import org.hibernate.annotations.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.FlushModeType;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class StudentRepositoryCustomImpl implements StudentRepositoryCustom {
+
+    static final int EXPORT_FETCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachStudent(Consumer<Student> action) {
+        try (Stream<Student> students = entityManager
+                .createQuery("SELECT s FROM Student s ORDER BY s.id", Student.class)
+                .setHint(QueryHints.FETCH_SIZE, EXPORT_FETCH_SIZE)
+                .setHint(QueryHints.READ_ONLY, true)
+                .getResultStream()) {
+            students.forEach(student -> {
+                action.accept(student);
+                entityManager.detach(student);
+            });
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachEmail(Consumer<String> action) {
+        try (Stream<String> emails = entityManager
+                .createQuery("SELECT s.email FROM Student s", String.class)
+                .setHint(QueryHints.FETCH_SIZE, EXPORT_FETCH_SIZE)
+                .getResultStream()) {
+            emails.forEach(action);
+        }
+    }
+
+    @Override
+    @Transactional
+    public List<Student> insertAll(Collection<Student> students) {
+        List<Student> inserted = new ArrayList<>(students.size());
+        for (Student student : students) {
+            student.setId(null);
+            entityManager.persist(student);
+            inserted.add(student);
+            if (inserted.size() % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return inserted;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<StudentView> findAllViews(Set<String> fields) {
+        return findViews(fields, null, null);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<StudentView> findViewsAfter(Set<String> fields, Long after, int limit) {
+        return findViews(fields, after, limit);
+    }
+
+    /**
+     * Selects scalar columns rather than entities, so Hibernate neither
+     * manages nor snapshots the rows, and does not flush before the query.
+     * Column names only come from {@link StudentView#FIELDS}.
+     */
+    private List<StudentView> findViews(Set<String> fields, Long after, Integer limit) {
+        String columns = StudentView.FIELDS.stream()
+                .filter(field -> field.equals("id") || fields.contains(field))
+                .map(field -> "s." + field + " AS " + field)
+                .collect(Collectors.joining(", "));
+        TypedQuery<Tuple> query = entityManager.createQuery("" +
+                        "SELECT " + columns + " FROM Student s" +
+                        (after == null ? "" : " WHERE s.id > :after") +
+                        " ORDER BY s.id", Tuple.class)
+                .setFlushMode(FlushModeType.COMMIT);
+        if (after != null) {
+            query.setParameter("after", after);
+        }
+        if (limit != null) {
+            query.setMaxResults(limit);
+        }
+        return query.getResultList().stream()
+                .map(tuple -> new StudentView(
+                        tuple.get("id", Long.class),
+                        fields.contains("name") ? tuple.get("name", String.class) : null,
+                        fields.contains("email") ? tuple.get("email", String.class) : null,
+                        fields.contains("gender") ? tuple.get("gender", Gender.class) : null))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Student> search(StudentSearch search, Long after, int limit) {
+        StringBuilder jpql = new StringBuilder("SELECT s FROM Student s WHERE 1 = 1");
+        Map<String, Object> parameters = new HashMap<>();
+        if (search.getNamePrefix() != null) {
+            jpql.append(" AND lower(s.name) LIKE :namePrefix ESCAPE '\\'");
+            parameters.put("namePrefix", escapeLike(search.getNamePrefix().toLowerCase(Locale.ROOT)) + "%");
+        }
+        if (search.getEmailDomain() != null) {
+            jpql.append(" AND lower(function('split_part', s.email, '@', 2)) = :emailDomain");
+            parameters.put("emailDomain", search.getEmailDomain().toLowerCase(Locale.ROOT));
+        }
+        if (search.getGender() != null) {
+            jpql.append(" AND s.gender = :gender");
+            parameters.put("gender", search.getGender());
+        }
+        if (after != null) {
+            jpql.append(" AND s.id > :after");
+            parameters.put("after", after);
+        }
+        jpql.append(" ORDER BY s.id");
+
+        TypedQuery<Student> query = entityManager.createQuery(jpql.toString(), Student.class)
+                .setMaxResults(limit);
+        parameters.forEach(query::setParameter);
+        return query.getResultList();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
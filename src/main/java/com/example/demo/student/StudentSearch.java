@@ -0,0 +1,25 @@
+package com.example.demo.student;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Filters of a student search. A {@code null} filter matches every student.
+ */
+@ToString
+@Getter
+@EqualsAndHashCode
+@AllArgsConstructor
+public class StudentSearch {
+    /**
+     * Start of the name, compared case-insensitively.
+     */
+    private final String namePrefix;
+    /**
+     * Part of the email after the {@code @}, compared case-insensitively.
+     */
+    private final String emailDomain;
+    private final Gender gender;
+}
@@ -0,0 +1,110 @@
+package com.example.demo.student;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializer;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Writes a {@link Student} field by field, with pre-encoded field names and
+ * genders, instead of going through the reflective bean serializer. Produces
+ * the same bytes as the bean serializer it replaces, see
+ * {@link StudentJsonModule} for when it does.
+ */
+public class StudentSerializer extends StdSerializer<Student> {
+
+    private static final List<String> PROPERTY_NAMES = Arrays.asList("id", "name", "email", "gender");
+
+    static final SerializedString ID = new SerializedString("id");
+    static final SerializedString NAME = new SerializedString("name");
+    static final SerializedString EMAIL = new SerializedString("email");
+    static final SerializedString GENDER = new SerializedString("gender");
+
+    private static final SerializedString[] GENDERS = Arrays.stream(Gender.values())
+            .map(gender -> new SerializedString(gender.name()))
+            .toArray(SerializedString[]::new);
+
+    public StudentSerializer() {
+        super(Student.class);
+    }
+
+    /**
+     * Whether this serializer writes exactly what the given default
+     * serializer of {@link Student} would: the four properties in declaration
+     * order, nulls included and no custom property serializers.
+     */
+    static boolean canReplace(JsonSerializer<?> defaultSerializer) {
+        return hasPlainProperties(defaultSerializer, false);
+    }
+
+    /**
+     * Whether the given default serializer is a bean serializer writing the
+     * four properties in declaration order, all of them suppressing nulls or
+     * none of them, with no custom property serializers.
+     */
+    static boolean hasPlainProperties(JsonSerializer<?> defaultSerializer, boolean nullsSuppressed) {
+        if (defaultSerializer.getClass() != BeanSerializer.class) {
+            return false;
+        }
+        List<String> names = new ArrayList<>();
+        for (Iterator<PropertyWriter> it = defaultSerializer.properties(); it.hasNext(); ) {
+            PropertyWriter property = it.next();
+            if (!(property instanceof BeanPropertyWriter)
+                    || ((BeanPropertyWriter) property).willSuppressNulls() != nullsSuppressed
+                    || ((BeanPropertyWriter) property).hasSerializer()) {
+                return false;
+            }
+            names.add(property.getName());
+        }
+        return names.equals(PROPERTY_NAMES);
+    }
+
+    @Override
+    public void serialize(Student student, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(student);
+        gen.writeFieldName(ID);
+        if (student.getId() == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(student.getId());
+        }
+        gen.writeFieldName(NAME);
+        writeString(gen, student.getName());
+        gen.writeFieldName(EMAIL);
+        writeString(gen, student.getEmail());
+        gen.writeFieldName(GENDER);
+        if (student.getGender() == null) {
+            gen.writeNull();
+        } else {
+            writeGender(gen, provider, student.getGender());
+        }
+        gen.writeEndObject();
+    }
+
+    static void writeGender(JsonGenerator gen, SerializerProvider provider, Gender gender) throws IOException {
+        if (provider.isEnabled(SerializationFeature.WRITE_ENUMS_USING_INDEX)) {
+            gen.writeNumber(gender.ordinal());
+        } else {
+            gen.writeString(GENDERS[gender.ordinal()]);
+        }
+    }
+
+    private static void writeString(JsonGenerator gen, String value) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(value);
+        }
+    }
+}
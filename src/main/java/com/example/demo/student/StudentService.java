@@ -1,40 +1,338 @@
 package com.example.demo.student;
 
+import com.example.demo.student.StudentBatchReport.RejectedStudent;
+import com.example.demo.student.StudentProperties.InsertMode;
 import com.example.demo.student.exception.BadRequestException;
 import com.example.demo.student.exception.StudentNotFoundException;
+import io.micrometer.core.annotation.Timed;
 import lombok.AllArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
-import java.util.List;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @AllArgsConstructor
 @Service
 public class StudentService {
 
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int MAX_CHUNK_SIZE = 1000;
+    public static final String SERVICE_TIMER = "student.service";
+    public static final String STUDENTS_CACHE = "students";
+    public static final String STUDENT_PAGES_CACHE = "studentPages";
+    private static final String UNIQUE_VIOLATION = "23505";
+
     private final StudentRepository studentRepository;
+    private final StudentProperties studentProperties;
+    private final Validator validator;
+    private final KnownEmailFilter knownEmailFilter;
+    private final StudentTableVersion studentTableVersion;
+    private final TransactionOperations transactionOperations;
+    private final StudentWriteBatcher studentWriteBatcher;
+
+    /**
+     * Returns the given {@link StudentView#FIELDS} of every student, all of
+     * them when {@code fields} is {@code null} or empty. The id is always
+     * included.
+     */
+    @Timed(SERVICE_TIMER)
+    @Transactional(readOnly = true)
+    public List<StudentView> getAllStudents(Set<String> fields) {
+        return studentRepository.findAllViews(selectedFields(fields));
+    }
+
+    /**
+     * Concurrent misses for the same id wait for one of them to load the
+     * student rather than each querying the database.
+     */
+    @Cacheable(cacheNames = STUDENTS_CACHE, key = "#studentId", sync = true)
+    @Timed(SERVICE_TIMER)
+    @Transactional(readOnly = true)
+    public Student getStudent(Long studentId) {
+        return studentRepository.findById(studentId)
+                .orElseThrow(() -> new StudentNotFoundException(
+                        "Student with id " + studentId + " does not exists"));
+    }
+
+    /**
+     * Returns one keyset page of students with the given
+     * {@link StudentView#FIELDS}, as {@link #getAllStudents(Set)} does.
+     * First pages are cached under the current {@link StudentTableVersion},
+     * so they are dropped as soon as a student is added or deleted.
+     */
+    @Cacheable(cacheNames = STUDENT_PAGES_CACHE,
+            key = "@studentTableVersion.current() + ':' + #limit + ':' + #fields",
+            condition = "#after == null")
+    @Timed(SERVICE_TIMER)
+    @Transactional(readOnly = true)
+    public StudentPage<StudentView> getStudentsAfter(Long after, int limit, Set<String> fields) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException(
+                    "Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        List<StudentView> students = studentRepository.findViewsAfter(selectedFields(fields), after, limit);
+
+        Long nextCursor = students.size() < limit
+                ? null
+                : students.get(students.size() - 1).getId();
+        return new StudentPage<>(students, nextCursor);
+    }
+
+    /**
+     * Returns one keyset page of the students matching {@code search}, in id
+     * order, like {@link #getStudentsAfter(Long, int, Set)}.
+     */
+    @Timed(SERVICE_TIMER)
+    @Transactional(readOnly = true)
+    public StudentPage<Student> searchStudents(StudentSearch search, Long after, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException(
+                    "Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        List<Student> students = studentRepository.search(search, after, limit);
 
-    public List<Student> getAllStudents() {
-        return studentRepository.findAll();
+        Long nextCursor = students.size() < limit
+                ? null
+                : students.get(students.size() - 1).getId();
+        return new StudentPage<>(students, nextCursor);
     }
 
+    /**
+     * Changes whenever a student is added or deleted through this instance,
+     * without querying the database.
+     */
+    public long getStudentsVersion() {
+        return studentTableVersion.current();
+    }
+
+    @Timed(SERVICE_TIMER)
+    @Transactional(readOnly = true)
+    public void exportStudents(Consumer<Student> consumer) {
+        studentRepository.forEachStudent(consumer);
+    }
+
+    /**
+     * Checks the email and inserts the student in one transaction, on one
+     * connection. With group commit enabled, students added concurrently are
+     * checked and inserted together by the {@link StudentWriteBatcher}
+     * instead, and no connection is held while waiting for it.
+     */
+    @Timed(SERVICE_TIMER)
     public Student addStudent(Student student) {
-        Boolean existsEmail = studentRepository
-                .selectExistsEmail(student.getEmail());
-        if (existsEmail) {
+        if (studentProperties.getGroupCommit().isEnabled()) {
+            return studentWriteBatcher.add(student);
+        }
+        Student saved = transactionOperations.execute(status -> insertStudent(student));
+        knownEmailFilter.add(student.getEmail());
+        studentTableVersion.increment();
+        return saved;
+    }
+
+    private Student insertStudent(Student student) {
+        if (studentProperties.getInsertMode() == InsertMode.CHECK_THEN_INSERT
+                && knownEmailFilter.mightContain(student.getEmail())) {
+            Boolean existsEmail = studentRepository
+                    .selectExistsEmail(student.getEmail());
+            if (existsEmail) {
+                throw new BadRequestException(
+                        "Email " + student.getEmail() + " taken");
+            }
+            knownEmailFilter.recordFalsePositive();
+        }
+
+        try {
+            return studentRepository.saveAndFlush(student);
+        } catch (DataIntegrityViolationException e) {
+            if (!isUniqueViolation(e)) {
+                throw e;
+            }
             throw new BadRequestException(
                     "Email " + student.getEmail() + " taken");
         }
+    }
+
+    /**
+     * Inserts as many of the given students as possible. Students are handled
+     * in chunks: the emails of a chunk are checked with a single query and the
+     * remaining students are inserted in JDBC batches. Invalid students and
+     * students whose email is taken, either in the database or earlier in the
+     * list, are reported back instead of failing the whole request.
+     * <p>
+     * Each chunk is checked and inserted in a transaction of its own, so a
+     * chunk rejected by the database is rolled back without undoing the
+     * chunks before it or stopping the ones after it.
+     */
+    @Timed(SERVICE_TIMER)
+    public StudentBatchReport addStudents(List<Student> students, Integer chunkSize) {
+        int size = chunkSize == null
+                ? studentProperties.getBatch().getChunkSize()
+                : chunkSize;
+        if (size < 1 || size > MAX_CHUNK_SIZE) {
+            throw new BadRequestException(
+                    "Chunk size must be between 1 and " + MAX_CHUNK_SIZE);
+        }
 
-        return studentRepository.save(student);
+        List<Student> inserted = new ArrayList<>(students.size());
+        List<RejectedStudent> rejected = new ArrayList<>();
+        Set<String> seenEmails = new HashSet<>();
+        for (int from = 0; from < students.size(); from += size) {
+            List<Student> chunk = students.subList(from, Math.min(from + size, students.size()));
+            int offset = from;
+            List<Student> insertedChunk = transactionOperations.execute(
+                    status -> addChunk(chunk, offset, rejected, seenEmails, status));
+            if (insertedChunk != null && !insertedChunk.isEmpty()) {
+                insertedChunk.forEach(student -> knownEmailFilter.add(student.getEmail()));
+                studentTableVersion.increment();
+                inserted.addAll(insertedChunk);
+            }
+        }
+        return new StudentBatchReport(inserted, rejected);
+    }
+
+    private List<Student> addChunk(List<Student> chunk,
+                                   int offset,
+                                   List<RejectedStudent> rejected,
+                                   Set<String> seenEmails,
+                                   TransactionStatus status) {
+        Set<String> maybeTakenEmails = chunk.stream()
+                .map(Student::getEmail)
+                .filter(email -> email != null && knownEmailFilter.mightContain(email))
+                .collect(Collectors.toSet());
+        Set<String> existingEmails = maybeTakenEmails.isEmpty()
+                ? Collections.emptySet()
+                : studentRepository.selectExistingEmails(maybeTakenEmails);
+
+        List<Student> accepted = new ArrayList<>(chunk.size());
+        List<Integer> acceptedIndexes = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            Student student = chunk.get(i);
+            String reason = rejectionReason(student, existingEmails, seenEmails);
+            if (reason != null) {
+                rejected.add(new RejectedStudent(offset + i, student.getEmail(), reason));
+            } else {
+                accepted.add(student);
+                acceptedIndexes.add(offset + i);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        try {
+            return studentRepository.insertAll(accepted);
+        } catch (DataIntegrityViolationException e) {
+            status.setRollbackOnly();
+            for (int i = 0; i < accepted.size(); i++) {
+                rejected.add(new RejectedStudent(
+                        acceptedIndexes.get(i),
+                        accepted.get(i).getEmail(),
+                        "Chunk rejected by the database: " + e.getMostSpecificCause().getMessage()));
+            }
+            return Collections.emptyList();
+        }
+    }
+
+    private String rejectionReason(Student student,
+                                   Set<String> existingEmails,
+                                   Set<String> seenEmails) {
+        Set<ConstraintViolation<Student>> violations = validator.validate(student);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+        }
+        if (existingEmails.contains(student.getEmail())) {
+            return "Email " + student.getEmail() + " taken";
+        }
+        if (!seenEmails.add(student.getEmail())) {
+            return "Email " + student.getEmail() + " appears more than once";
+        }
+        return null;
     }
 
+    /**
+     * Deletes the student in a transaction of its own. The table version, the
+     * email filter and the cached student are only updated once it commits,
+     * so a concurrent read can neither cache the deleted student again nor
+     * store its rows under the new version.
+     */
+    @CacheEvict(cacheNames = STUDENTS_CACHE, key = "#studentId")
+    @Timed(SERVICE_TIMER)
     public void deleteStudent(Long studentId) {
-        if(!studentRepository.existsById(studentId)) {
+        Integer deleted = transactionOperations.execute(
+                status -> studentRepository.deleteStudentById(studentId));
+        if (deleted == null || deleted == 0) {
             throw new StudentNotFoundException(
                     "Student with id " + studentId + " does not exists");
         }
-        studentRepository.deleteById(studentId);
+        knownEmailFilter.recordDeletions(1);
+        studentTableVersion.increment();
+    }
+
+    /**
+     * Deletes the students with the given ids, ignoring ids that do not
+     * exist, with one DELETE statement per {@value #MAX_CHUNK_SIZE} ids, all
+     * in one transaction. As for {@link #deleteStudent(Long)}, the version,
+     * the email filter and the cache are updated after the commit.
+     *
+     * @return the number of students deleted
+     */
+    @CacheEvict(cacheNames = STUDENTS_CACHE, allEntries = true)
+    @Timed(SERVICE_TIMER)
+    public int deleteStudents(List<Long> studentIds) {
+        Integer deleted = transactionOperations.execute(status -> deleteChunks(studentIds));
+        if (deleted == null || deleted == 0) {
+            return 0;
+        }
+        knownEmailFilter.recordDeletions(deleted);
+        studentTableVersion.increment();
+        return deleted;
+    }
+
+    private int deleteChunks(List<Long> studentIds) {
+        int deleted = 0;
+        for (int from = 0; from < studentIds.size(); from += MAX_CHUNK_SIZE) {
+            deleted += studentRepository.deleteStudentsByIdIn(
+                    studentIds.subList(from, Math.min(from + MAX_CHUNK_SIZE, studentIds.size())));
+        }
+        return deleted;
+    }
+
+    private static Set<String> selectedFields(Set<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return new LinkedHashSet<>(StudentView.FIELDS);
+        }
+        for (String field : fields) {
+            if (!StudentView.FIELDS.contains(field)) {
+                throw new BadRequestException(
+                        "Unknown field " + field + ", expected one of " + String.join(", ", StudentView.FIELDS));
+            }
+        }
+        Set<String> selected = new LinkedHashSet<>(fields);
+        selected.add("id");
+        return selected;
+    }
+
+    static boolean isUniqueViolation(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException
+                    && UNIQUE_VIOLATION.equals(((SQLException) cause).getSQLState())) {
+                return true;
+            }
+        }
+        return false;
     }
 }
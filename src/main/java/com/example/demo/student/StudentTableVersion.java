@@ -0,0 +1,25 @@
+package com.example.demo.student;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counter bumped on every write to the student table through this
+ * application. Results derived from the whole table can be keyed by it, so
+ * bumping it invalidates all of them at once. It starts from the startup time
+ * so that values handed out before a restart are not reused.
+ */
+@Component
+public class StudentTableVersion {
+
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    public long current() {
+        return version.get();
+    }
+
+    public long increment() {
+        return version.incrementAndGet();
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.demo.student;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Immutable copy of the columns of a student, read without loading a
+ * {@link Student} entity: nothing is added to the persistence context and no
+ * snapshot is kept for dirty checking. Fields that were not selected are
+ * {@code null} and left out of the JSON.
+ */
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StudentView {
+
+    /**
+     * Names of the fields that can be selected, in column order.
+     */
+    public static final List<String> FIELDS = List.of("id", "name", "email", "gender");
+
+    Long id;
+    String name;
+    String email;
+    Gender gender;
+}
@@ -0,0 +1,63 @@
+package com.example.demo.student;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link StudentView} field by field like {@link StudentSerializer}
+ * does for students, leaving out the fields that were not selected. Produces
+ * the same bytes as the bean serializer it replaces, see
+ * {@link StudentJsonModule} for when it does.
+ */
+public class StudentViewSerializer extends StdSerializer<StudentView> {
+
+    public StudentViewSerializer() {
+        super(StudentView.class);
+    }
+
+    /**
+     * Whether this serializer writes exactly what the given default
+     * serializer of {@link StudentView} would: the four properties in
+     * declaration order, nulls left out and nothing else, such as empty
+     * strings, and no custom property serializers.
+     */
+    static boolean canReplace(SerializationConfig config,
+                              BeanDescription beanDesc,
+                              JsonSerializer<?> defaultSerializer) {
+        // merged as Jackson's PropertyBuilder does: config overrides win over the annotation
+        JsonInclude.Value inclusion = JsonInclude.Value.merge(
+                beanDesc.findPropertyInclusion(JsonInclude.Value.empty()),
+                config.getDefaultPropertyInclusion(StudentView.class, JsonInclude.Value.empty()));
+        return inclusion.getValueInclusion() == JsonInclude.Include.NON_NULL
+                && StudentSerializer.hasPlainProperties(defaultSerializer, true);
+    }
+
+    @Override
+    public void serialize(StudentView view, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(view);
+        if (view.getId() != null) {
+            gen.writeFieldName(StudentSerializer.ID);
+            gen.writeNumber(view.getId());
+        }
+        if (view.getName() != null) {
+            gen.writeFieldName(StudentSerializer.NAME);
+            gen.writeString(view.getName());
+        }
+        if (view.getEmail() != null) {
+            gen.writeFieldName(StudentSerializer.EMAIL);
+            gen.writeString(view.getEmail());
+        }
+        if (view.getGender() != null) {
+            gen.writeFieldName(StudentSerializer.GENDER);
+            StudentSerializer.writeGender(gen, provider, view.getGender());
+        }
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,293 @@
+package com.example.demo.student;
+
+import com.example.demo.student.StudentProperties.InsertMode;
+import com.example.demo.student.exception.BadRequestException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.Closeable;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Group commit for {@link StudentService#addStudent}. Callers queue their
+ * student and wait; a single writer thread takes up to
+ * {@code student.group-commit.max-batch-size} queued students, waiting at
+ * most {@code student.group-commit.max-delay} after the first one, checks
+ * their emails with one query and inserts them with one batched insert in
+ * one transaction.
+ * <p>
+ * Each caller still gets its own student back or its own
+ * {@link BadRequestException}: emails found taken, or repeated within the
+ * batch, are rejected one by one. When the database rejects the batch, for
+ * instance because another instance inserted one of the emails meanwhile,
+ * its students are inserted again one at a time so only the offending ones
+ * fail. Any other failure of the batch transaction, such as a failing email
+ * check, falls back the same way, so each caller gets the outcome of its own
+ * insert. While a batch is written the next one fills up, so batches grow
+ * with the load and a lone insert waits for nothing but the delay.
+ * <p>
+ * Callers wait at most {@code max-delay} plus
+ * {@code student.group-commit.write-timeout}. A caller that times out gets
+ * an error although its student may still be inserted by a batch already
+ * being written. Once closed, adds fail straight away.
+ */
+@Slf4j
+@Component
+public class StudentWriteBatcher implements MeterBinder, Closeable {
+
+    private final StudentRepository studentRepository;
+    private final KnownEmailFilter knownEmailFilter;
+    private final StudentTableVersion studentTableVersion;
+    private final TransactionOperations transactionOperations;
+    private final StudentProperties studentProperties;
+
+    private final BlockingQueue<PendingStudent> queue = new LinkedBlockingQueue<>();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile boolean closed;
+    private volatile Thread writer;
+    private volatile DistributionSummary batchSizes;
+
+    public StudentWriteBatcher(StudentRepository studentRepository,
+                               KnownEmailFilter knownEmailFilter,
+                               StudentTableVersion studentTableVersion,
+                               TransactionOperations transactionOperations,
+                               StudentProperties studentProperties) {
+        this.studentRepository = studentRepository;
+        this.knownEmailFilter = knownEmailFilter;
+        this.studentTableVersion = studentTableVersion;
+        this.transactionOperations = transactionOperations;
+        this.studentProperties = studentProperties;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        batchSizes = DistributionSummary.builder("student.group-commit.batch.size")
+                .description("Students inserted per group commit")
+                .register(registry);
+    }
+
+    /**
+     * Queues the student for the next batch and waits until it is inserted.
+     */
+    public Student add(Student student) {
+        PendingStudent pending = new PendingStudent(student);
+        queue.add(pending);
+        // checked after queueing, so a close in between cannot miss the student
+        if (closed) {
+            queue.remove(pending);
+            throw new IllegalStateException("Student writer stopped");
+        }
+        // started after queueing too, so a writer exiting meanwhile is replaced
+        startWriter();
+        StudentProperties.GroupCommit properties = studentProperties.getGroupCommit();
+        long timeout = properties.getMaxDelay().plus(properties.getWriteTimeout()).toNanos();
+        try {
+            return pending.result.get(timeout, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            queue.remove(pending);
+            pending.result.completeExceptionally(e);
+            throw new IllegalStateException("Timed out waiting for the student to be inserted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the student to be inserted", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Thread current = writer;
+        if (current != null) {
+            current.interrupt();
+        }
+        failPending(new IllegalStateException("Student writer stopped"));
+    }
+
+    private void startWriter() {
+        if (closed || !started.compareAndSet(false, true)) {
+            return;
+        }
+        Thread thread = new Thread(this::writeBatches, "student-group-commit");
+        thread.setDaemon(true);
+        writer = thread;
+        thread.start();
+    }
+
+    private void writeBatches() {
+        try {
+            takeAndWriteBatches();
+        } finally {
+            started.set(false);
+            if (closed) {
+                failPending(new IllegalStateException("Student writer stopped"));
+            } else if (!queue.isEmpty()) {
+                startWriter();
+            }
+        }
+    }
+
+    private void takeAndWriteBatches() {
+        StudentProperties.GroupCommit properties = studentProperties.getGroupCommit();
+        int maxBatchSize = Math.max(1, properties.getMaxBatchSize());
+        while (!Thread.currentThread().isInterrupted()) {
+            List<PendingStudent> batch = new ArrayList<>(maxBatchSize);
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + properties.getMaxDelay().toNanos();
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() == maxBatchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingStudent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(pending -> pending.result.completeExceptionally(
+                        new IllegalStateException("Student writer stopped")));
+                return;
+            }
+            try {
+                write(batch);
+            } catch (Throwable e) {
+                log.error("Failed to write a batch of {} students", batch.size(), e);
+                batch.forEach(pending -> pending.result.completeExceptionally(e));
+            }
+        }
+    }
+
+    private void write(List<PendingStudent> batch) {
+        DistributionSummary sizes = batchSizes;
+        if (sizes != null) {
+            sizes.record(batch.size());
+        }
+        List<PendingStudent> unique = new ArrayList<>(batch.size());
+        Set<String> seenEmails = new HashSet<>();
+        for (PendingStudent pending : batch) {
+            if (pending.result.isDone()) {
+                // its caller timed out
+                continue;
+            }
+            if (seenEmails.add(pending.student.getEmail())) {
+                unique.add(pending);
+            } else {
+                pending.rejectEmailTaken();
+            }
+        }
+        List<PendingStudent> accepted;
+        try {
+            accepted = transactionOperations.execute(status -> insertBatch(unique));
+        } catch (RuntimeException e) {
+            log.debug("Batch of {} students failed, inserting them one by one", unique.size(), e);
+            unique.stream()
+                    .filter(pending -> !pending.result.isDone())
+                    .forEach(this::insertOne);
+            return;
+        }
+        if (accepted != null && !accepted.isEmpty()) {
+            accepted.forEach(pending -> knownEmailFilter.add(pending.student.getEmail()));
+            studentTableVersion.increment();
+            accepted.forEach(pending -> pending.result.complete(pending.student));
+        }
+    }
+
+    /**
+     * Rejects the students whose email is taken and inserts the others.
+     *
+     * @return the students inserted, once the transaction commits
+     */
+    private List<PendingStudent> insertBatch(List<PendingStudent> batch) {
+        Set<String> existingEmails = Collections.emptySet();
+        if (studentProperties.getInsertMode() == InsertMode.CHECK_THEN_INSERT) {
+            Set<String> maybeTakenEmails = batch.stream()
+                    .map(pending -> pending.student.getEmail())
+                    .filter(knownEmailFilter::mightContain)
+                    .collect(Collectors.toSet());
+            if (!maybeTakenEmails.isEmpty()) {
+                existingEmails = studentRepository.selectExistingEmails(maybeTakenEmails);
+                for (String email : maybeTakenEmails) {
+                    if (!existingEmails.contains(email)) {
+                        knownEmailFilter.recordFalsePositive();
+                    }
+                }
+            }
+        }
+
+        List<PendingStudent> accepted = new ArrayList<>(batch.size());
+        for (PendingStudent pending : batch) {
+            if (existingEmails.contains(pending.student.getEmail())) {
+                pending.rejectEmailTaken();
+            } else {
+                accepted.add(pending);
+            }
+        }
+        if (!accepted.isEmpty()) {
+            studentRepository.insertAll(accepted.stream()
+                    .map(pending -> pending.student)
+                    .collect(Collectors.toList()));
+        }
+        return accepted;
+    }
+
+    private void insertOne(PendingStudent pending) {
+        pending.student.setId(null);
+        try {
+            Student saved = transactionOperations.execute(
+                    status -> studentRepository.saveAndFlush(pending.student));
+            knownEmailFilter.add(pending.student.getEmail());
+            studentTableVersion.increment();
+            pending.result.complete(saved);
+        } catch (DataIntegrityViolationException e) {
+            if (StudentService.isUniqueViolation(e)) {
+                pending.rejectEmailTaken();
+            } else {
+                pending.result.completeExceptionally(e);
+            }
+        } catch (RuntimeException e) {
+            pending.result.completeExceptionally(e);
+        }
+    }
+
+    private void failPending(RuntimeException cause) {
+        List<PendingStudent> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        pending.forEach(student -> student.result.completeExceptionally(cause));
+    }
+
+    private static class PendingStudent {
+        final Student student;
+        final CompletableFuture<Student> result = new CompletableFuture<>();
+
+        PendingStudent(Student student) {
+            this.student = student;
+        }
+
+        void rejectEmailTaken() {
+            result.completeExceptionally(new BadRequestException(
+                    "Email " + student.getEmail() + " taken"));
+        }
+    }
+}
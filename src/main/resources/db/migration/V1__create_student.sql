@@ -0,0 +1,14 @@
+-- The schema as Hibernate generated it before migrations were introduced.
+-- Existing databases are baselined at this version instead of running it.
+
+CREATE SEQUENCE student_sequence START WITH 1 INCREMENT BY 1;
+
+CREATE TABLE student
+(
+    id     BIGINT       NOT NULL,
+    email  VARCHAR(255) NOT NULL,
+    gender VARCHAR(255) NOT NULL,
+    name   VARCHAR(255) NOT NULL,
+    CONSTRAINT student_pkey PRIMARY KEY (id),
+    CONSTRAINT student_email_key UNIQUE (email)
+);
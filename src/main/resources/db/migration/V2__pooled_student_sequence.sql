@@ -0,0 +1,17 @@
+-- Moves student_sequence from one id per nextval to blocks of 50 ids, to
+-- match Student.ID_ALLOCATION_SIZE. Hibernate refuses to start when the
+-- sequence increment does not match. Databases that already ran this script
+-- by hand are left as they are.
+--
+-- With the pooled optimizer every nextval returns the highest id of a new
+-- block, so the ids handed out after this migration all lie above the
+-- current sequence value. The setval below additionally moves the sequence
+-- past rows that were inserted with explicit ids.
+
+LOCK TABLE student IN SHARE ROW EXCLUSIVE MODE;
+
+SELECT setval('student_sequence',
+              GREATEST((SELECT COALESCE(MAX(id), 1) FROM student),
+                       (SELECT last_value FROM student_sequence)));
+
+ALTER SEQUENCE student_sequence INCREMENT BY 50;
@@ -0,0 +1,14 @@
+-- Built concurrently so writes go on while the indexes are created, which
+-- makes Flyway run this migration outside a transaction.
+
+-- Keyset pages (WHERE id > ? ORDER BY id LIMIT ?) read every column from the
+-- index, without visiting the table for rows marked all-visible.
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS student_id_covering_idx
+    ON student (id) INCLUDE (name, email, gender);
+
+-- Filtering by name or gender, with keyset ordering on id within a value.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS student_name_id_idx
+    ON student (name, id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS student_gender_id_idx
+    ON student (gender, id);
@@ -0,0 +1,12 @@
+-- Indexes for the student search, on the same expressions the search query
+-- filters on. Built concurrently, like V3.
+
+-- Case-insensitive name prefix (lower(name) LIKE 'abc%'). The pattern
+-- operator class makes the prefix usable as an index range whatever the
+-- database collation.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS student_lower_name_idx
+    ON student (lower(name) text_pattern_ops, id);
+
+-- Case-insensitive email domain, with keyset ordering on id within a domain.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS student_email_domain_id_idx
+    ON student (lower(split_part(email, '@', 2)), id);
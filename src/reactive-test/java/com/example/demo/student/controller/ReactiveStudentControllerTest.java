@@ -0,0 +1,108 @@
+package com.example.demo.student.controller;
+
+import com.example.demo.student.Gender;
+import com.example.demo.student.ReactiveStudentController;
+import com.example.demo.student.ReactiveStudentService;
+import com.example.demo.student.Student;
+import com.example.demo.student.exception.StudentNotFoundException;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@WebFluxTest(controllers = ReactiveStudentController.class)
+@ActiveProfiles("reactive")
+@Tag("Unit")
+class ReactiveStudentControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private ReactiveStudentService reactiveStudentService;
+
+    private final List<Student> expectedListOfStudents = Arrays.asList(
+            new Student(1L, "reda", "reda@gmail.com", Gender.MALE),
+            new Student(2L, "wafaa", "wafaa@gmail.com", Gender.FEMALE)
+    );
+
+    @Test
+    void getAllStudents_Ndjson_StreamsStudentsAnd200() {
+//        given
+        given(reactiveStudentService.getAllStudents()).willReturn(Flux.fromIterable(expectedListOfStudents));
+//        when
+//        then
+        webTestClient.get().uri("/api/v1/students")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Student.class).isEqualTo(expectedListOfStudents);
+    }
+
+    @Test
+    void getStudent_StudentNotExists_Returns404() {
+//        given
+        given(reactiveStudentService.getStudent(1L)).willReturn(Mono.error(
+                new StudentNotFoundException("Student with id 1 does not exists")));
+//        when
+//        then
+        webTestClient.get().uri("/api/v1/students/{studentId}", 1L)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void addStudent_ValidPayload_ReturnsStudentAnd200() {
+//        given
+        Student student = new Student(null, "reda", "reda@gmail.com", Gender.MALE);
+        Student savedStudent = new Student(1L, "reda", "reda@gmail.com", Gender.MALE);
+        given(reactiveStudentService.addStudent(student)).willReturn(Mono.just(savedStudent));
+//        when
+//        then
+        webTestClient.post().uri("/api/v1/students")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(student)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Student.class).isEqualTo(savedStudent);
+    }
+
+    @Test
+    void addStudent_NotValidPayload_Returns400() {
+//        given
+        Student student = new Student(null, "", "redagmail.com", Gender.MALE);
+//        when
+        webTestClient.post().uri("/api/v1/students")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(student)
+                .exchange()
+                .expectStatus().isBadRequest();
+//        then
+        verify(reactiveStudentService, never()).addStudent(any());
+    }
+
+    @Test
+    void deleteStudent_StudentExists_Returns200() {
+//        given
+        given(reactiveStudentService.deleteStudent(1L)).willReturn(Mono.empty());
+//        when
+//        then
+        webTestClient.delete().uri("/api/v1/students/{studentId}", 1L)
+                .exchange()
+                .expectStatus().isOk();
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.demo.student.repository;
+
+import com.example.demo.student.Gender;
+import com.example.demo.student.ReactiveStudentRepository;
+import com.example.demo.student.Student;
+import com.example.demo.student.StudentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.test.StepVerifier;
+
+@Tag("Integration")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("reactive")
+@Testcontainers
+public class ReactiveStudentRepositoryIntegrationTest {
+
+    @Container
+    private static PostgreSQLContainer<?> postgreSQLContainer = new PostgreSQLContainer<>("postgres:latest");
+
+    @Autowired
+    private ReactiveStudentRepository underTest;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @DynamicPropertySource
+    static void overrideProps(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgreSQLContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgreSQLContainer::getUsername);
+        registry.add("spring.datasource.password", postgreSQLContainer::getPassword);
+        registry.add("spring.datasource.driverClassName", postgreSQLContainer::getDriverClassName);
+        registry.add("spring.r2dbc.url", () -> "r2dbc:postgresql://" + postgreSQLContainer.getHost()
+                + ":" + postgreSQLContainer.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT)
+                + "/" + postgreSQLContainer.getDatabaseName());
+        registry.add("spring.r2dbc.username", postgreSQLContainer::getUsername);
+        registry.add("spring.r2dbc.password", postgreSQLContainer::getPassword);
+    }
+
+    @AfterEach
+    void tearDown() {
+        studentRepository.deleteAll();
+    }
+
+    @Test
+    @Sql(statements = "INSERT INTO student(id,name,email,gender) VALUES ('2','reda','reda@gmail.com','MALE'),('1','wafaa','wafaa@gmail.com','FEMALE')", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    void findAll_StreamsStudentsInIdOrder() {
+//        when
+//        then
+        StepVerifier.create(underTest.findAll())
+                .expectNext(new Student(1L, "wafaa", "wafaa@gmail.com", Gender.FEMALE))
+                .expectNext(new Student(2L, "reda", "reda@gmail.com", Gender.MALE))
+                .verifyComplete();
+    }
+
+    @Test
+    void insert_ThenFindById_ReturnsStudent() {
+//        given
+        Student student = new Student("Jamila", "jamila@gmail.com", Gender.FEMALE);
+//        when
+        Student inserted = underTest.insert(student).block();
+//        then
+        StepVerifier.create(underTest.findById(inserted.getId()))
+                .expectNext(new Student(inserted.getId(), "Jamila", "jamila@gmail.com", Gender.FEMALE))
+                .verifyComplete();
+    }
+
+    @Test
+    @Sql(statements = "INSERT INTO student(id,name,email,gender) VALUES ('1','reda','reda@gmail.com','MALE')", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    void deleteById_ReturnsRowsDeleted() {
+//        when
+//        then
+        StepVerifier.create(underTest.deleteById(1L))
+                .expectNext(1)
+                .verifyComplete();
+        StepVerifier.create(underTest.deleteById(1L))
+                .expectNext(0)
+                .verifyComplete();
+    }
+}
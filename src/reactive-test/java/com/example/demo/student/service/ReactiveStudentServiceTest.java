@@ -0,0 +1,68 @@
+package com.example.demo.student.service;
+
+import com.example.demo.student.Gender;
+import com.example.demo.student.ReactiveStudentRepository;
+import com.example.demo.student.ReactiveStudentService;
+import com.example.demo.student.Student;
+import com.example.demo.student.StudentTableVersion;
+import com.example.demo.student.exception.BadRequestException;
+import io.r2dbc.spi.R2dbcDataIntegrityViolationException;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@Tag("Unit")
+class ReactiveStudentServiceTest {
+
+    @Mock
+    private ReactiveStudentRepository reactiveStudentRepository;
+
+    @Mock
+    private StudentTableVersion studentTableVersion;
+
+    @InjectMocks
+    private ReactiveStudentService underTest;
+
+    @Test
+    void addStudent_EmailTaken_ThrowsBadRequestException() {
+//        given
+        Student student = new Student("Jamila", "jamila@gmail.com", Gender.FEMALE);
+        given(reactiveStudentRepository.insert(student)).willReturn(Mono.error(integrityViolation("23505")));
+//        when
+//        then
+        StepVerifier.create(underTest.addStudent(student))
+                .expectErrorMatches(e -> e instanceof BadRequestException
+                        && e.getMessage().equals("Email jamila@gmail.com taken"))
+                .verify();
+        verify(studentTableVersion, never()).increment();
+    }
+
+    @Test
+    void addStudent_OtherIntegrityViolation_KeepsIt() {
+//        given
+        Student student = new Student(null, "jamila@gmail.com", Gender.FEMALE);
+        // not_null_violation
+        given(reactiveStudentRepository.insert(student)).willReturn(Mono.error(integrityViolation("23502")));
+//        when
+//        then
+        StepVerifier.create(underTest.addStudent(student))
+                .expectError(DataIntegrityViolationException.class)
+                .verify();
+    }
+
+    private static DataIntegrityViolationException integrityViolation(String sqlState) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new R2dbcDataIntegrityViolationException("violation", sqlState));
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.demo.student;
+
+import lombok.AllArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+
+/**
+ * Non-blocking counterpart of {@link StudentController}, active with the
+ * {@code reactive} profile. Asking for {@code application/x-ndjson} streams
+ * students as they come off the database cursor, at the pace the client reads
+ * them.
+ */
+@Profile("reactive")
+@RestController
+@RequestMapping(path = "api/v1/students")
+@AllArgsConstructor
+public class ReactiveStudentController {
+
+    private final ReactiveStudentService reactiveStudentService;
+
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<Student> getAllStudents() {
+        return reactiveStudentService.getAllStudents();
+    }
+
+    @GetMapping(path = "{studentId}")
+    public Mono<Student> getStudent(
+            @PathVariable("studentId") Long studentId) {
+        return reactiveStudentService.getStudent(studentId);
+    }
+
+    @PostMapping
+    public Mono<Student> addStudent(@Valid @RequestBody Student student) {
+        return reactiveStudentService.addStudent(student);
+    }
+
+    @DeleteMapping(path = "{studentId}")
+    public Mono<Void> deleteStudent(
+            @PathVariable("studentId") Long studentId) {
+        return reactiveStudentService.deleteStudent(studentId);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.demo.student;
+
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Row;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking access to the student table used by the {@code reactive}
+ * profile. Rows are fetched from the database cursor as the subscriber
+ * requests them.
+ */
+@Profile("reactive")
+@Repository
+public class ReactiveStudentRepository {
+
+    static final int FETCH_SIZE = 500;
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveStudentRepository(ConnectionFactory connectionFactory) {
+        this.databaseClient = DatabaseClient.create(connectionFactory);
+    }
+
+    public Flux<Student> findAll() {
+        return databaseClient
+                .sql("SELECT id, name, email, gender FROM student ORDER BY id")
+                .filter(statement -> statement.fetchSize(FETCH_SIZE))
+                .map((row, metadata) -> toStudent(row))
+                .all();
+    }
+
+    public Mono<Student> findById(Long id) {
+        return databaseClient
+                .sql("SELECT id, name, email, gender FROM student WHERE id = :id")
+                .bind("id", id)
+                .map((row, metadata) -> toStudent(row))
+                .one();
+    }
+
+    /**
+     * Inserts the student under a fresh id. JPA uses each value returned by
+     * {@code student_sequence} as the highest id of a block it owns, so the
+     * value itself can be used here without clashing with it.
+     */
+    public Mono<Student> insert(Student student) {
+        return databaseClient
+                .sql("INSERT INTO student (id, name, email, gender) " +
+                        "VALUES (nextval('student_sequence'), :name, :email, :gender)")
+                .bind("name", student.getName())
+                .bind("email", student.getEmail())
+                .bind("gender", student.getGender().name())
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .map((row, metadata) -> new Student(
+                        row.get("id", Long.class),
+                        student.getName(),
+                        student.getEmail(),
+                        student.getGender()))
+                .one();
+    }
+
+    public Mono<Integer> deleteById(Long id) {
+        return databaseClient
+                .sql("DELETE FROM student WHERE id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private static Student toStudent(Row row) {
+        return new Student(
+                row.get("id", Long.class),
+                row.get("name", String.class),
+                row.get("email", String.class),
+                Gender.valueOf(row.get("gender", String.class)));
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.demo.student;
+
+import com.example.demo.student.exception.BadRequestException;
+import com.example.demo.student.exception.StudentNotFoundException;
+import io.r2dbc.spi.R2dbcException;
+import lombok.AllArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Profile("reactive")
+@AllArgsConstructor
+@Service
+public class ReactiveStudentService {
+
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private final ReactiveStudentRepository reactiveStudentRepository;
+    private final StudentTableVersion studentTableVersion;
+
+    public Flux<Student> getAllStudents() {
+        return reactiveStudentRepository.findAll();
+    }
+
+    public Mono<Student> getStudent(Long studentId) {
+        return reactiveStudentRepository.findById(studentId)
+                .switchIfEmpty(Mono.error(() -> new StudentNotFoundException(
+                        "Student with id " + studentId + " does not exists")));
+    }
+
+    public Mono<Student> addStudent(Student student) {
+        return reactiveStudentRepository.insert(student)
+                .onErrorMap(ReactiveStudentService::isUniqueViolation,
+                        e -> new BadRequestException("Email " + student.getEmail() + " taken"))
+                .doOnSuccess(saved -> studentTableVersion.increment());
+    }
+
+    public Mono<Void> deleteStudent(Long studentId) {
+        return reactiveStudentRepository.deleteById(studentId)
+                .flatMap(deleted -> deleted == 0
+                        ? Mono.error(new StudentNotFoundException(
+                                "Student with id " + studentId + " does not exists"))
+                        : Mono.fromRunnable(studentTableVersion::increment));
+    }
+
+    /**
+     * Same check as {@link StudentService#isUniqueViolation}, on the R2DBC
+     * exception the driver raised.
+     */
+    static boolean isUniqueViolation(Throwable e) {
+        if (!(e instanceof DataIntegrityViolationException)) {
+            return false;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof R2dbcException
+                    && UNIQUE_VIOLATION.equals(((R2dbcException) cause).getSqlState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
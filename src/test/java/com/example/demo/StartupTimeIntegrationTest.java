@@ -0,0 +1,61 @@
+package com.example.demo;
+
+import com.example.demo.student.StudentService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Fails when the {@code faststart} profile takes longer than
+ * {@code startup.max-time-to-ready-millis} to get ready, measured in a fresh
+ * JVM by the {@code startup-time} failsafe execution.
+ */
+@Tag("Integration")
+@Testcontainers
+class StartupTimeIntegrationTest {
+
+    private static final Duration MAX_TIME_TO_READY =
+            Duration.ofMillis(Long.getLong("startup.max-time-to-ready-millis", 15_000));
+
+    @Container
+    private static PostgreSQLContainer<?> postgreSQLContainer = new PostgreSQLContainer<>("postgres:latest");
+
+    @BeforeAll
+    static void migrate() {
+        Flyway.configure()
+                .dataSource(postgreSQLContainer.getJdbcUrl(),
+                        postgreSQLContainer.getUsername(),
+                        postgreSQLContainer.getPassword())
+                .load()
+                .migrate();
+    }
+
+    @Test
+    void run_FastStartProfile_ReadyWithinBudget() {
+//        given
+        long start = System.nanoTime();
+//        when
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(DemoApplication.class)
+                .profiles("faststart")
+                .run("--server.port=0",
+                        "--spring.datasource.url=" + postgreSQLContainer.getJdbcUrl(),
+                        "--spring.datasource.username=" + postgreSQLContainer.getUsername(),
+                        "--spring.datasource.password=" + postgreSQLContainer.getPassword(),
+                        "--spring.datasource.driverClassName=" + postgreSQLContainer.getDriverClassName())) {
+            Duration timeToReady = Duration.ofNanos(System.nanoTime() - start);
+//        then
+            assertThat(timeToReady).isLessThanOrEqualTo(MAX_TIME_TO_READY);
+            assertThat(context.getBean(StudentService.class).getAllStudents(null)).isEmpty();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.demo.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@Tag("Unit")
+class BoundedDataSourceTest {
+
+    @Mock
+    private DataSource targetDataSource;
+
+    private BoundedDataSource underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new BoundedDataSource(targetDataSource, 2, Duration.ofMillis(10));
+    }
+
+    @Test
+    void getConnection_PermitsExhausted_ThrowsSQLTransientConnectionException() throws SQLException {
+//        given
+        given(targetDataSource.getConnection()).willAnswer(invocation -> mock(Connection.class));
+        underTest.getConnection();
+        underTest.getConnection();
+//        when
+//        then
+        assertThatThrownBy(() -> underTest.getConnection())
+                .isInstanceOf(SQLTransientConnectionException.class)
+                .hasMessageContaining("2 already in use");
+    }
+
+    @Test
+    void close_ReleasesPermitOnce() throws SQLException {
+//        given
+        Connection target = mock(Connection.class);
+        given(targetDataSource.getConnection()).willReturn(target);
+        Connection connection = underTest.getConnection();
+//        when
+        connection.close();
+        connection.close();
+//        then
+        assertThat(underTest.getAvailablePermits()).isEqualTo(2);
+        verify(target).close();
+    }
+
+    @Test
+    void unwrap_Connection_ReturnsProxy() throws SQLException {
+//        given
+        Connection target = mock(Connection.class);
+        given(targetDataSource.getConnection()).willReturn(target);
+        Connection connection = underTest.getConnection();
+//        when
+        Connection unwrapped = connection.unwrap(Connection.class);
+        unwrapped.close();
+//        then
+        assertThat(unwrapped).isSameAs(connection);
+        assertThat(underTest.getAvailablePermits()).isEqualTo(2);
+    }
+
+    @Test
+    void equals_ComparesProxyIdentity() throws SQLException {
+//        given
+        Connection target = mock(Connection.class);
+        given(targetDataSource.getConnection()).willReturn(target);
+//        when
+        Connection first = underTest.getConnection();
+        Connection second = underTest.getConnection();
+//        then
+        assertThat(first).isEqualTo(first);
+        assertThat(first).isNotEqualTo(second);
+        assertThat(first.equals(target)).isFalse();
+        assertThat(first.hashCode()).isEqualTo(System.identityHashCode(first));
+    }
+
+    @Test
+    void getConnection_TargetFails_ReleasesPermit() throws SQLException {
+//        given
+        willThrow(new SQLException("database down")).given(targetDataSource).getConnection();
+//        when
+//        then
+        assertThatThrownBy(() -> underTest.getConnection())
+                .isInstanceOf(SQLException.class)
+                .hasMessageContaining("database down");
+        assertThat(underTest.getAvailablePermits()).isEqualTo(2);
+    }
+}
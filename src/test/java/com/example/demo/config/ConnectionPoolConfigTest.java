@@ -0,0 +1,47 @@
+package com.example.demo.config;
+
+import com.example.demo.student.StudentProperties;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+@Tag("Unit")
+class ConnectionPoolConfigTest {
+
+    private final StudentProperties.Pool pool = new StudentProperties.Pool();
+
+    @Test
+    void poolSize_FewCores_SizesFromCores() {
+//        given
+        pool.setDatabaseMaxConnections(100);
+        pool.setInstances(2);
+//        when
+        int poolSize = ConnectionPoolConfig.poolSize(4, pool);
+//        then
+        assertThat(poolSize).isEqualTo(9);
+    }
+
+    @Test
+    void poolSize_ManyInstances_SizesFromDatabaseShare() {
+//        given
+        pool.setDatabaseMaxConnections(100);
+        pool.setReservedConnections(3);
+        pool.setInstances(10);
+//        when
+        int poolSize = ConnectionPoolConfig.poolSize(16, pool);
+//        then
+        assertThat(poolSize).isEqualTo(9);
+    }
+
+    @Test
+    void poolSize_MoreInstancesThanConnections_KeepsOneConnection() {
+//        given
+        pool.setDatabaseMaxConnections(10);
+        pool.setInstances(20);
+//        when
+        int poolSize = ConnectionPoolConfig.poolSize(8, pool);
+//        then
+        assertThat(poolSize).isEqualTo(1);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.demo.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("Unit")
+class ReplicaRoutingDataSourceTest {
+
+    private static final String PRIMARY_URL = "jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1";
+    private static final String FIRST_REPLICA_URL = "jdbc:h2:mem:replica1;DB_CLOSE_DELAY=-1";
+    private static final String SECOND_REPLICA_URL = "jdbc:h2:mem:replica2;DB_CLOSE_DELAY=-1";
+    private static final String UNREACHABLE_REPLICA_URL = "jdbc:h2:tcp://localhost:1/replica3";
+
+    private ReplicaRoutingDataSource routingDataSource;
+    private DataSource underTest;
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void tearDown() {
+        entityManagerFactory.close();
+        routingDataSource.close();
+    }
+
+    @Test
+    void readOnlyTransactions_HealthyReplicas_UseReplicasInTurn() {
+//        given
+        init(Duration.ZERO, FIRST_REPLICA_URL, SECOND_REPLICA_URL);
+        routingDataSource.checkReplicas();
+//        when
+//        then
+        assertThat(databaseUsedBy(true)).startsWith("jdbc:h2:mem:replica1");
+        assertThat(databaseUsedBy(true)).startsWith("jdbc:h2:mem:replica2");
+        assertThat(databaseUsedBy(true)).startsWith("jdbc:h2:mem:replica1");
+    }
+
+    @Test
+    void readWriteTransaction_UsesPrimary() {
+//        given
+        init(Duration.ZERO, FIRST_REPLICA_URL);
+        routingDataSource.checkReplicas();
+//        when
+        String database = databaseUsedBy(false);
+//        then
+        assertThat(database).startsWith("jdbc:h2:mem:primary");
+    }
+
+    @Test
+    void readOnlyTransaction_ReplicaUnreachable_SkipsIt() {
+//        given
+        init(Duration.ZERO, UNREACHABLE_REPLICA_URL, SECOND_REPLICA_URL);
+//        when
+        routingDataSource.checkReplicas();
+//        then
+        assertThat(routingDataSource.getHealthyReplicas()).isEqualTo(Collections.singletonList(1));
+        assertThat(databaseUsedBy(true)).startsWith("jdbc:h2:mem:replica2");
+        assertThat(databaseUsedBy(true)).startsWith("jdbc:h2:mem:replica2");
+    }
+
+    @Test
+    void readOnlyTransaction_ReplicasNotCheckedYet_UsesPrimary() {
+//        given
+        init(Duration.ZERO, FIRST_REPLICA_URL);
+//        when
+        String database = databaseUsedBy(true);
+//        then
+        assertThat(database).startsWith("jdbc:h2:mem:primary");
+    }
+
+    @Test
+    void readOnlyTransaction_WithinReadYourWritesWindow_UsesPrimary() {
+//        given
+        init(Duration.ofMinutes(1), FIRST_REPLICA_URL);
+        routingDataSource.checkReplicas();
+        String beforeWrite = databaseUsedBy(true);
+//        when
+        databaseUsedBy(false);
+//        then
+        assertThat(beforeWrite).startsWith("jdbc:h2:mem:replica1");
+        assertThat(databaseUsedBy(true)).startsWith("jdbc:h2:mem:primary");
+    }
+
+    private void init(Duration readYourWritesWindow, String... replicaUrls) {
+        DataSource[] replicas = Arrays.stream(replicaUrls)
+                .map(DriverManagerDataSource::new)
+                .toArray(DataSource[]::new);
+        routingDataSource = new ReplicaRoutingDataSource(
+                new DriverManagerDataSource(PRIMARY_URL), Arrays.asList(replicas), readYourWritesWindow);
+        underTest = new LazyConnectionDataSourceProxy(routingDataSource);
+        // the application's transaction manager, which begins transactions through Hibernate
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(underTest);
+        factory.setPackagesToScan("com.example.demo.student");
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setJpaPropertyMap(Map.of(
+                "hibernate.dialect", "org.hibernate.dialect.H2Dialect",
+                "hibernate.temp.use_jdbc_metadata_defaults", "false"));
+        factory.afterPropertiesSet();
+        entityManagerFactory = factory.getObject();
+    }
+
+    private String databaseUsedBy(boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new JpaTransactionManager(entityManagerFactory));
+        transactionTemplate.setReadOnly(readOnly);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(underTest);
+        return transactionTemplate.execute(status -> jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getURL()));
+    }
+}
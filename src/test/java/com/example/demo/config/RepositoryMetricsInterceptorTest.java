@@ -0,0 +1,83 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+@Tag("Unit")
+class RepositoryMetricsInterceptorTest {
+
+    @Mock
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Mock
+    private MethodInvocation invocation;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private RepositoryMetricsInterceptor underTest;
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        given(meterRegistryProvider.getIfAvailable()).willReturn(meterRegistry);
+        given(invocation.getMethod()).willReturn(List.class.getMethod("size"));
+        underTest = new RepositoryMetricsInterceptor(meterRegistryProvider);
+    }
+
+    @Test
+    void invoke_CollectionResult_RecordsTimeAndRows() throws Throwable {
+//        given
+        given(invocation.proceed()).willReturn(Arrays.asList("reda", "wafaa"));
+//        when
+        underTest.invoke(invocation);
+//        then
+        assertThat(meterRegistry.get("student.repository.query").tag("method", "size").tag("exception", "none").timer().count())
+                .isEqualTo(1L);
+        assertThat(meterRegistry.get("student.repository.rows").tag("method", "size").summary().totalAmount())
+                .isEqualTo(2.0);
+    }
+
+    @Test
+    void invoke_Throws_RecordsExceptionTag() throws Throwable {
+//        given
+        given(invocation.proceed()).willThrow(new IllegalStateException("database down"));
+//        when
+        assertThatThrownBy(() -> underTest.invoke(invocation))
+                .isInstanceOf(IllegalStateException.class);
+//        then
+        assertThat(meterRegistry.get("student.repository.query").tag("exception", "IllegalStateException").timer().count())
+                .isEqualTo(1L);
+    }
+
+    @Test
+    void invoke_RepeatedCalls_RecordToTheSameMeters() throws Throwable {
+//        given
+        given(invocation.proceed()).willReturn(Arrays.asList("reda", "wafaa"));
+        underTest.invoke(invocation);
+        int meters = meterRegistry.getMeters().size();
+//        when
+        underTest.invoke(invocation);
+        underTest.invoke(invocation);
+//        then
+        assertThat(meterRegistry.getMeters().size()).isEqualTo(meters);
+        assertThat(meterRegistry.get("student.repository.query").tag("method", "size").timer().count())
+                .isEqualTo(3L);
+        assertThat(meterRegistry.get("student.repository.rows").tag("method", "size").summary().totalAmount())
+                .isEqualTo(6.0);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.demo.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("Unit")
+class SqlStatisticsListenerTest {
+
+    private final SqlStatisticsListener underTest = new SqlStatisticsListener();
+
+    private final SqlStatisticsListener.StatementRecorder statementRecorder =
+            new SqlStatisticsListener.StatementRecorder(Duration.ofMillis(200));
+
+    @AfterEach
+    void tearDown() {
+        underTest.end();
+        while (SqlStatistics.stop() != null) {
+        }
+    }
+
+    @Test
+    void executeStatement_Recording_RecordsStatementAndConnection() {
+//        given
+        SqlStatistics.start();
+//        when
+        underTest.jdbcConnectionAcquisitionEnd();
+        statementRecorder.inspect("select * from student");
+        underTest.jdbcExecuteStatementStart();
+        underTest.jdbcExecuteStatementEnd();
+        statementRecorder.inspect("insert into student values (?)");
+        underTest.jdbcExecuteBatchStart();
+        underTest.jdbcExecuteBatchEnd();
+//        then
+        SqlStatistics statistics = SqlStatistics.stop();
+        assertThat(statistics.getStatements())
+                .isEqualTo(Arrays.asList("select * from student", "insert into student values (?)"));
+        assertThat(statistics.getConnectionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void executeStatement_NotRecording_RecordsNothing() {
+//        when
+        statementRecorder.inspect("select * from student");
+        underTest.jdbcExecuteStatementStart();
+        underTest.jdbcExecuteStatementEnd();
+//        then
+        assertThat(SqlStatistics.stop()).isNull();
+    }
+
+    @Test
+    void stop_NestedRecording_AddsToOuterRecording() {
+//        given
+        SqlStatistics.start();
+        SqlStatistics.start();
+        statementRecorder.inspect("select * from student");
+        underTest.jdbcExecuteStatementStart();
+        underTest.jdbcExecuteStatementEnd();
+//        when
+        SqlStatistics inner = SqlStatistics.stop();
+        SqlStatistics outer = SqlStatistics.stop();
+//        then
+        assertThat(inner.getStatementCount()).isEqualTo(1);
+        assertThat(outer.getStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void executeStatement_AfterExecution_ForgetsPreparedSql() {
+//        given
+        SqlStatistics.start();
+        statementRecorder.inspect("select * from student");
+        underTest.jdbcExecuteStatementStart();
+        underTest.jdbcExecuteStatementEnd();
+//        when
+        underTest.jdbcExecuteStatementStart();
+        underTest.jdbcExecuteStatementEnd();
+//        then
+        assertThat(SqlStatistics.stop().getStatements())
+                .isEqualTo(Arrays.asList("select * from student", null));
+    }
+
+    @Test
+    void end_ForgetsPreparedSql() {
+//        given
+        statementRecorder.inspect("select * from student");
+        underTest.end();
+        SqlStatistics.start();
+//        when
+        underTest.jdbcExecuteStatementStart();
+        underTest.jdbcExecuteStatementEnd();
+//        then
+        assertThat(SqlStatistics.stop().getStatements())
+                .isEqualTo(Collections.singletonList(null));
+    }
+}
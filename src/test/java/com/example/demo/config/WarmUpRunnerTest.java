@@ -0,0 +1,64 @@
+package com.example.demo.config;
+
+import com.example.demo.student.StudentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import javax.sql.DataSource;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@Tag("Unit")
+class WarmUpRunnerTest {
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private StudentRepository studentRepository;
+
+    private WarmUpRunner underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new WarmUpRunner(dataSource, studentRepository, new ObjectMapper(), 3);
+    }
+
+    @Test
+    void run_RunsEveryQueryOnEachIterationWithoutWriting() throws Exception {
+//        when
+        underTest.run(null);
+//        then
+        verify(studentRepository, times(3)).findViewsAfter(anySet(), isNull(), anyInt());
+        verify(studentRepository, times(3)).findViewsAfter(anySet(), any(Long.class), anyInt());
+        verify(studentRepository, times(3)).selectExistsEmail(anyString());
+        verify(studentRepository, never()).save(any());
+        verify(studentRepository, never()).deleteStudentById(any());
+    }
+
+    @Test
+    void run_DatabaseUnavailable_DoesNotThrow() throws Exception {
+//        given
+        given(studentRepository.findViewsAfter(anySet(), isNull(), anyInt()))
+                .willThrow(new DataAccessResourceFailureException("database down"));
+//        when
+        underTest.run(null);
+//        then
+        verify(studentRepository, never()).selectExistsEmail(anyString());
+    }
+}
@@ -87,6 +87,27 @@ public class StudentControllerIntegrationTest {
         assertThat(actualStudents).usingRecursiveComparison().ignoringCollectionOrder().isEqualTo(expectedStudents);
     }
 
+    @Test
+    void getAllStudents_IfNoneMatch_Returns304UntilAStudentIsAdded() throws Exception {
+//        given
+        String eTag = testRestTemplate.exchange(getApiUrl(), HttpMethod.GET, new HttpEntity<>(null, httpHeaders), String.class)
+                .getHeaders().getETag();
+        HttpHeaders conditionalHeaders = new HttpHeaders();
+        conditionalHeaders.putAll(httpHeaders);
+        conditionalHeaders.setIfNoneMatch(eTag);
+        HttpEntity<?> conditionalGet = new HttpEntity<>(null, conditionalHeaders);
+//        when
+        ResponseEntity<String> notModified = testRestTemplate.exchange(getApiUrl(), HttpMethod.GET, conditionalGet, String.class);
+        testRestTemplate.exchange(getApiUrl(), HttpMethod.POST,
+                new HttpEntity<>(new Student("reda", "reda@gmail.com", Gender.MALE), httpHeaders), Student.class);
+        ResponseEntity<String> modified = testRestTemplate.exchange(getApiUrl(), HttpMethod.GET, conditionalGet, String.class);
+//        then
+        assertThat(eTag).isNotNull();
+        assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(modified.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(modified.getHeaders().getETag()).isNotEqualTo(eTag);
+    }
+
     @Test
     void addStudent_ValidPayload_ReturnsStudentAnd200() throws Exception {
 //        given
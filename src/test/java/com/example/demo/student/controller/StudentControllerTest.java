@@ -1,13 +1,24 @@
 package com.example.demo.student.controller;
 
 import com.example.demo.student.Gender;
+import com.example.demo.student.StudentBatchReport;
 import com.example.demo.student.Student;
 import com.example.demo.student.StudentController;
+import com.example.demo.student.StudentPage;
+import com.example.demo.student.StudentSearch;
 import com.example.demo.student.StudentService;
+import com.example.demo.student.StudentView;
 import com.example.demo.student.exception.StudentNotFoundException;
 import com.example.demo.utils.ResponseBodyMatchers;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
@@ -16,20 +27,37 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 
@@ -41,16 +69,22 @@ class StudentControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
-    @Autowired
+    @SpyBean
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @MockBean
     private StudentService studentService;
 
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
     private Student validStudent;
     private Student notValidStudent;
 
     private List<Student> expectedListOfStudents;
+    private List<StudentView> expectedListOfViews;
 
     @BeforeEach
     void setUp() {
@@ -69,21 +103,310 @@ class StudentControllerTest {
                 new Student(1L, "reda", "reda@gmail.com", Gender.MALE),
                 new Student(2L, "wafaa", "wafaa@gmail.com", Gender.FEMALE)
         );
+        expectedListOfViews = Arrays.asList(
+                new StudentView(1L, "reda", "reda@gmail.com", Gender.MALE),
+                new StudentView(2L, "wafaa", "wafaa@gmail.com", Gender.FEMALE)
+        );
     }
 
 
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
     @Test
     void getAllStudents_ReturnsListOfStudentsAnd200() throws Exception {
 //        given
 
 
-        given(studentService.getAllStudents()).willReturn(expectedListOfStudents);
+        given(studentService.getStudentsAfter(null, 100, null)).willReturn(new StudentPage<>(expectedListOfViews, null));
+        mockMvc.perform(get("/api/v1/students")
+                        .contentType(MediaType.APPLICATION_JSON)
+                ).andExpect(status().isOk())
+                .andExpect(header().doesNotExist(StudentController.NEXT_CURSOR_HEADER))
+                .andExpect(ResponseBodyMatchers.response().containsObjectAsJson(expectedListOfStudents, new TypeReference<List<Student>>() {
+                }));
+
+    }
+
+    @Test
+    void getAllStudents_MoreStudentsFollow_ReturnsNextCursorHeader() throws Exception {
+//        given
+        given(studentService.getStudentsAfter(1L, 2, null)).willReturn(new StudentPage<>(expectedListOfViews, 2L));
+//        when
+//        then
+        mockMvc.perform(get("/api/v1/students")
+                        .param("after", "1")
+                        .param("limit", "2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                ).andExpect(status().isOk())
+                .andExpect(header().string(StudentController.NEXT_CURSOR_HEADER, "2"))
+                .andExpect(ResponseBodyMatchers.response().containsObjectAsJson(expectedListOfStudents, new TypeReference<List<Student>>() {
+                }));
+    }
+
+    @Test
+    void getAllStudents_Unpaged_ReturnsWholeTableAnd200() throws Exception {
+//        given
+        given(studentService.getAllStudents(null)).willReturn(expectedListOfViews);
+//        when
+        mockMvc.perform(get("/api/v1/students")
+                        .param("unpaged", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                ).andExpect(status().isOk())
+                .andExpect(ResponseBodyMatchers.response().containsObjectAsJson(expectedListOfStudents, new TypeReference<List<Student>>() {
+                }));
+//        then
+        verify(studentService, never()).getStudentsAfter(any(), anyInt(), any());
+    }
+
+    @Test
+    void getAllStudents_SparseFields_SendsOnlyThoseFields() throws Exception {
+//        given
+        Set<String> fields = new LinkedHashSet<>(Arrays.asList("id", "email"));
+        given(studentService.getStudentsAfter(null, 100, fields)).willReturn(new StudentPage<>(Arrays.asList(
+                new StudentView(1L, null, "reda@gmail.com", null),
+                new StudentView(2L, null, "wafaa@gmail.com", null)
+        ), null));
+//        when
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/students")
+                        .param("fields", "id,email"))
+                .andExpect(status().isOk())
+                .andReturn();
+//        then
+        JsonNode students = objectMapper.readTree(mvcResult.getResponse().getContentAsString());
+        assertThat(students.get(0).toString()).isEqualTo("{\"id\":1,\"email\":\"reda@gmail.com\"}");
+    }
+
+    @Test
+    void getAllStudents_ETagMatches_Returns304WithoutQuerying() throws Exception {
+//        given
+        given(studentService.getStudentsVersion()).willReturn(7L);
+        given(studentService.getStudentsAfter(null, 100, null)).willReturn(new StudentPage<>(expectedListOfViews, null));
+        String eTag = mockMvc.perform(get("/api/v1/students"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+//        when
+//        then
+        mockMvc.perform(get("/api/v1/students")
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag));
+        verify(studentService, times(1)).getStudentsAfter(null, 100, null);
+    }
+
+    @Test
+    void getAllStudents_TableVersionChanged_Returns200() throws Exception {
+//        given
+        given(studentService.getStudentsVersion()).willReturn(7L, 8L);
+        given(studentService.getStudentsAfter(null, 100, null)).willReturn(new StudentPage<>(expectedListOfViews, null));
+        String eTag = mockMvc.perform(get("/api/v1/students"))
+                .andReturn().getResponse().getHeader("ETag");
+//        when
+//        then
+        mockMvc.perform(get("/api/v1/students")
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(ResponseBodyMatchers.response().containsObjectAsJson(expectedListOfStudents, new TypeReference<List<Student>>() {
+                }));
+    }
+
+    @Test
+    void getAllStudents_AcceptsCbor_ReturnsCborWithGenderOrdinal() throws Exception {
+//        given
+        given(studentService.getStudentsAfter(null, 100, null)).willReturn(new StudentPage<>(expectedListOfViews, null));
+//        when
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/students")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", MediaType.APPLICATION_CBOR_VALUE))
+                .andReturn();
+//        then
+        JsonNode students = new ObjectMapper(new CBORFactory())
+                .readTree(mvcResult.getResponse().getContentAsByteArray());
+        assertThat(students.get(1).get("email").textValue()).isEqualTo("wafaa@gmail.com");
+        assertThat(students.get(1).get("gender").intValue()).isEqualTo(Gender.FEMALE.ordinal());
+    }
+
+    @Test
+    void getAllStudents_CborPreferredOverJson_UsesMessageConverters() throws Exception {
+//        given
+        given(studentService.getStudentsAfter(null, 100, null)).willReturn(new StudentPage<>(expectedListOfViews, null));
+//        when
+//        then
+        mockMvc.perform(get("/api/v1/students")
+                        .header("Accept", "application/cbor, application/json;q=0.5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", MediaType.APPLICATION_CBOR_VALUE));
+        verify(objectMapper, never()).writeValueAsBytes(any());
+    }
+
+    @Test
+    void getAllStudents_AcceptsSmile_UsesMessageConverters() throws Exception {
+//        given
+        given(studentService.getStudentsAfter(null, 100, null)).willReturn(new StudentPage<>(expectedListOfViews, null));
+//        when
+//        then
+        mockMvc.perform(get("/api/v1/students")
+                        .header("Accept", "application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-jackson-smile"));
+        verify(objectMapper, never()).writeValueAsBytes(any());
+    }
+
+    @Test
+    void getAllStudents_AcceptsAnything_SerializesJsonOnce() throws Exception {
+//        given
+        given(studentService.getStudentsAfter(null, 100, null)).willReturn(new StudentPage<>(expectedListOfViews, null));
+//        when
+//        then
         mockMvc.perform(get("/api/v1/students")
+                        .header("Accept", "*/*"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(ResponseBodyMatchers.response().containsObjectAsJson(expectedListOfStudents, new TypeReference<List<Student>>() {
+                }));
+        verify(objectMapper, times(1)).writeValueAsBytes(expectedListOfViews);
+    }
+
+    @Test
+    void getAllStudents_ConcurrentIdenticalRequests_QueryOnceAndShareBody() throws Exception {
+//        given
+        CountDownLatch release = new CountDownLatch(1);
+        given(studentService.getStudentsAfter(null, 100, null)).willAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return new StudentPage<>(expectedListOfViews, null);
+        });
+//        when
+        List<Future<MvcResult>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(perform(() -> get("/api/v1/students")));
+        }
+        awaitStudentListCalls(4);
+        release.countDown();
+//        then
+        byte[] body = results.get(0).get(5, TimeUnit.SECONDS).getResponse().getContentAsByteArray();
+        for (Future<MvcResult> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS).getResponse().getStatus()).isEqualTo(200);
+            assertThat(result.get().getResponse().getContentAsByteArray()).isEqualTo(body);
+        }
+        verify(studentService, times(1)).getStudentsAfter(null, 100, null);
+        verify(objectMapper, times(1)).writeValueAsBytes(expectedListOfViews);
+    }
+
+    @Test
+    void getAllStudents_ConcurrentRequestsForDifferentFields_QueryEach() throws Exception {
+//        given
+        CountDownLatch bothQuerying = queryingTogether(2);
+//        when
+        Future<MvcResult> ids = perform(() -> get("/api/v1/students").param("fields", "id"));
+        Future<MvcResult> emails = perform(() -> get("/api/v1/students").param("fields", "id,email"));
+//        then
+        assertThat(ids.get(10, TimeUnit.SECONDS).getResponse().getStatus()).isEqualTo(200);
+        assertThat(emails.get(10, TimeUnit.SECONDS).getResponse().getStatus()).isEqualTo(200);
+        assertThat(bothQuerying.getCount()).isEqualTo(0);
+        verify(studentService, times(2)).getStudentsAfter(isNull(), eq(100), any());
+    }
+
+    @Test
+    void getAllStudents_ConcurrentRequestsForDifferentFormats_QueryEach() throws Exception {
+//        given
+        CountDownLatch bothQuerying = queryingTogether(2);
+//        when
+        Future<MvcResult> json = perform(() -> get("/api/v1/students").accept(MediaType.APPLICATION_JSON));
+        Future<MvcResult> cbor = perform(() -> get("/api/v1/students").accept(MediaType.APPLICATION_CBOR));
+//        then
+        assertThat(json.get(10, TimeUnit.SECONDS).getResponse().getContentType()).isEqualTo(MediaType.APPLICATION_JSON_VALUE);
+        assertThat(cbor.get(10, TimeUnit.SECONDS).getResponse().getContentType()).isEqualTo(MediaType.APPLICATION_CBOR_VALUE);
+        assertThat(bothQuerying.getCount()).isEqualTo(0);
+        verify(studentService, times(2)).getStudentsAfter(isNull(), eq(100), any());
+    }
+
+    @Test
+    void searchStudents_PassesFiltersAndReturnsNextCursorHeader() throws Exception {
+//        given
+        StudentSearch search = new StudentSearch("re", "gmail.com", Gender.MALE);
+        given(studentService.searchStudents(search, 1L, 2)).willReturn(new StudentPage<>(expectedListOfStudents, 2L));
+//        when
+//        then
+        mockMvc.perform(get("/api/v1/students/search")
+                        .param("namePrefix", "re")
+                        .param("emailDomain", "gmail.com")
+                        .param("gender", "MALE")
+                        .param("after", "1")
+                        .param("limit", "2")
                         .contentType(MediaType.APPLICATION_JSON)
                 ).andExpect(status().isOk())
+                .andExpect(header().string(StudentController.NEXT_CURSOR_HEADER, "2"))
                 .andExpect(ResponseBodyMatchers.response().containsObjectAsJson(expectedListOfStudents, new TypeReference<List<Student>>() {
                 }));
+    }
+
+    @Test
+    void searchStudents_UnknownGender_Returns400() throws Exception {
+//        when
+//        then
+        mockMvc.perform(get("/api/v1/students/search")
+                        .param("gender", "UNKNOWN")
+                        .contentType(MediaType.APPLICATION_JSON)
+                ).andExpect(status().isBadRequest());
+        verify(studentService, never()).searchStudents(any(), any(), anyInt());
+    }
+
+    @Test
+    void getStudent_StudentExists_ReturnsStudentAnd200() throws Exception {
+//        given
+        given(studentService.getStudent(10L)).willReturn(validStudent);
+//        when
+//        then
+        mockMvc.perform(get("/api/v1/students/{studentId}", 10L)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(ResponseBodyMatchers.response().containsObjectAsJson(validStudent, new TypeReference<Student>() {
+                }));
+    }
+
+    @Test
+    void getStudent_StudentNotExists_Returns404() throws Exception {
+//        given
+        Long studentId = 1L;
+        String exceptionMessage = "Student with id " + studentId + " does not exists";
+        given(studentService.getStudent(studentId)).willThrow(new StudentNotFoundException(exceptionMessage));
+//        when
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/students/{studentId}", studentId)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound())
+                .andReturn();
+//        then
+        assertThat(Objects.requireNonNull(mvcResult.getResolvedException()).getMessage()).isEqualToIgnoringWhitespace(exceptionMessage);
+    }
+
+    @Test
+    void exportStudents_StreamsOneStudentPerLineAnd200() throws Exception {
+//        given
+        doAnswer(invocation -> {
+            Consumer<Student> consumer = invocation.getArgument(0);
+            expectedListOfStudents.forEach(consumer);
+            return null;
+        }).when(studentService).exportStudents(any());
+
+//        when
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/students/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", StudentController.APPLICATION_NDJSON_VALUE))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
 
+//        then
+        String[] lines = body.split("\n");
+        assertThat(lines.length).isEqualTo(2);
+        assertThat(objectMapper.readValue(lines[0], Student.class)).isEqualTo(expectedListOfStudents.get(0));
+        assertThat(objectMapper.readValue(lines[1], Student.class)).isEqualTo(expectedListOfStudents.get(1));
     }
 
     @Test
@@ -128,6 +451,46 @@ class StudentControllerTest {
         verify(studentService, times(0)).addStudent(any());
     }
 
+    @Test
+    void addStudents_ReturnsBatchReportAnd200() throws Exception {
+//        given
+        StudentBatchReport report = new StudentBatchReport(
+                Collections.singletonList(expectedListOfStudents.get(0)),
+                Collections.singletonList(new StudentBatchReport.RejectedStudent(1, "wafaa@gmail.com", "Email wafaa@gmail.com taken"))
+        );
+        given(studentService.addStudents(eq(expectedListOfStudents), eq(200))).willReturn(report);
+
+//        when
+//        then
+        mockMvc.perform(
+                        post("/api/v1/students/batch")
+                                .param("chunkSize", "200")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(expectedListOfStudents))
+                ).andExpect(status().isOk())
+                .andExpect(ResponseBodyMatchers.response().containsObjectAsJson(report, new TypeReference<StudentBatchReport>() {
+                }));
+    }
+
+    @Test
+    void addStudents_CborPayload_ReturnsBatchReportAnd200() throws Exception {
+//        given
+        StudentBatchReport report = new StudentBatchReport(expectedListOfStudents, Collections.emptyList());
+        given(studentService.addStudents(eq(expectedListOfStudents), eq(null))).willReturn(report);
+        ObjectMapper cborMapper = new ObjectMapper(new CBORFactory())
+                .enable(SerializationFeature.WRITE_ENUMS_USING_INDEX);
+//        when
+//        then
+        mockMvc.perform(
+                        post("/api/v1/students/batch")
+                                .contentType(MediaType.APPLICATION_CBOR)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(cborMapper.writeValueAsBytes(expectedListOfStudents))
+                ).andExpect(status().isOk())
+                .andExpect(ResponseBodyMatchers.response().containsObjectAsJson(report, new TypeReference<StudentBatchReport>() {
+                }));
+    }
+
     @Test
     void deleteStudent_StudentExists_Returns200() throws Exception {
 //        given
@@ -171,4 +534,65 @@ class StudentControllerTest {
 
 
     }
+
+    @Test
+    void deleteStudents_ReturnsDeletedCountAnd200() throws Exception {
+//        given
+        List<Long> studentIds = Arrays.asList(1L, 2L, 3L);
+        given(studentService.deleteStudents(studentIds)).willReturn(2);
+//        when
+//        then
+        mockMvc.perform(delete("/api/v1/students/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(studentIds)))
+                .andExpect(status().isOk())
+                .andExpect(ResponseBodyMatchers.response().containsObjectAsJson(2, new TypeReference<Integer>() {
+                }));
+    }
+
+    private Future<MvcResult> perform(Supplier<RequestBuilder> request) {
+        return callers.submit(() -> mockMvc.perform(request.get()).andReturn());
+    }
+
+    /**
+     * Holds every page query until {@code count} of them run at the same
+     * time, so requests that were wrongly coalesced make the wait time out.
+     */
+    private CountDownLatch queryingTogether(int count) {
+        CountDownLatch querying = new CountDownLatch(count);
+        given(studentService.getStudentsAfter(isNull(), eq(100), any())).willAnswer(invocation -> {
+            querying.countDown();
+            querying.await(5, TimeUnit.SECONDS);
+            return new StudentPage<>(expectedListOfViews, null);
+        });
+        return querying;
+    }
+
+    /**
+     * Waits until {@code count} list requests are reading the students or
+     * waiting for the one that does.
+     */
+    private void awaitStudentListCalls(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (studentListCalls("executed") + studentListCalls("shared") < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private double studentListCalls(String result) {
+        FunctionCounter calls = meterRegistry.find("student.single-flight.calls")
+                .tag("flight", "student-list")
+                .tag("result", result)
+                .functionCounter();
+        return calls == null ? 0 : calls.count();
+    }
+
+    @TestConfiguration
+    static class MeterRegistryConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
 }
@@ -0,0 +1,130 @@
+package com.example.demo.student.controller;
+
+import com.example.demo.student.Gender;
+import com.example.demo.student.Student;
+import com.example.demo.student.StudentJsonModule;
+import com.example.demo.student.StudentView;
+import com.example.demo.student.StudentViewSerializer;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("Unit")
+class StudentJsonModuleTest {
+
+    private final List<Student> students = Arrays.asList(
+            new Student(1L, "reda", "reda@gmail.com", Gender.MALE),
+            new Student(2L, "wafaa \"w\" é", "wafaa@gmail.com", Gender.FEMALE),
+            new Student(null, null, null, null)
+    );
+
+    private final List<StudentView> views = Arrays.asList(
+            new StudentView(1L, "reda", "reda@gmail.com", Gender.MALE),
+            new StudentView(2L, null, "wafaa@gmail.com", null),
+            new StudentView(3L, "wafaa \"w\" é", null, Gender.FEMALE)
+    );
+
+    @Test
+    void writeValueAsBytes_DefaultMapper_SameBytesAsBeanSerializer() throws Exception {
+//        given
+        ObjectMapper defaultMapper = new ObjectMapper();
+        ObjectMapper underTest = new ObjectMapper().registerModule(new StudentJsonModule());
+//        when
+        byte[] actual = underTest.writeValueAsBytes(students);
+//        then
+        assertThat(actual).isEqualTo(defaultMapper.writeValueAsBytes(students));
+    }
+
+    @Test
+    void writeValueAsBytes_EnumsAsIndex_SameBytesAsBeanSerializer() throws Exception {
+//        given
+        ObjectMapper defaultMapper = new ObjectMapper()
+                .enable(SerializationFeature.WRITE_ENUMS_USING_INDEX);
+        ObjectMapper underTest = new ObjectMapper()
+                .enable(SerializationFeature.WRITE_ENUMS_USING_INDEX)
+                .registerModule(new StudentJsonModule());
+//        when
+        byte[] actual = underTest.writeValueAsBytes(students);
+//        then
+        assertThat(actual).isEqualTo(defaultMapper.writeValueAsBytes(students));
+    }
+
+    @Test
+    void writeValueAsBytes_NullsExcluded_FallsBackToBeanSerializer() throws Exception {
+//        given
+        ObjectMapper defaultMapper = new ObjectMapper()
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        ObjectMapper underTest = new ObjectMapper()
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .registerModule(new StudentJsonModule());
+//        when
+        byte[] actual = underTest.writeValueAsBytes(students);
+//        then
+        assertThat(actual).isEqualTo(defaultMapper.writeValueAsBytes(students));
+    }
+
+    @Test
+    void writeValueAsBytes_SortedProperties_FallsBackToBeanSerializer() throws Exception {
+//        given
+        ObjectMapper defaultMapper = new ObjectMapper()
+                .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY);
+        ObjectMapper underTest = new ObjectMapper()
+                .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+                .registerModule(new StudentJsonModule());
+//        when
+        byte[] actual = underTest.writeValueAsBytes(students);
+//        then
+        assertThat(actual).isEqualTo(defaultMapper.writeValueAsBytes(students));
+    }
+
+    @Test
+    void writeValueAsBytes_Views_SameBytesAsBeanSerializer() throws Exception {
+//        given
+        ObjectMapper defaultMapper = new ObjectMapper();
+        ObjectMapper underTest = new ObjectMapper().registerModule(new StudentJsonModule());
+//        when
+        byte[] actual = underTest.writeValueAsBytes(views);
+//        then
+        assertThat(actual).isEqualTo(defaultMapper.writeValueAsBytes(views));
+        assertThat(underTest.getSerializerProviderInstance().findValueSerializer(StudentView.class))
+                .isInstanceOf(StudentViewSerializer.class);
+    }
+
+    @Test
+    void writeValueAsBytes_ViewsWithEnumsAsIndex_SameBytesAsBeanSerializer() throws Exception {
+//        given
+        ObjectMapper defaultMapper = new ObjectMapper()
+                .enable(SerializationFeature.WRITE_ENUMS_USING_INDEX);
+        ObjectMapper underTest = new ObjectMapper()
+                .enable(SerializationFeature.WRITE_ENUMS_USING_INDEX)
+                .registerModule(new StudentJsonModule());
+//        when
+        byte[] actual = underTest.writeValueAsBytes(views);
+//        then
+        assertThat(actual).isEqualTo(defaultMapper.writeValueAsBytes(views));
+    }
+
+    @Test
+    void writeValueAsBytes_ViewsWithEmptyValuesExcluded_FallsBackToBeanSerializer() throws Exception {
+//        given
+        ObjectMapper defaultMapper = new ObjectMapper();
+        defaultMapper.configOverride(StudentView.class)
+                .setInclude(JsonInclude.Value.construct(JsonInclude.Include.NON_EMPTY, null));
+        ObjectMapper underTest = new ObjectMapper().registerModule(new StudentJsonModule());
+        underTest.configOverride(StudentView.class)
+                .setInclude(JsonInclude.Value.construct(JsonInclude.Include.NON_EMPTY, null));
+        List<StudentView> withEmptyName = Arrays.asList(new StudentView(1L, "", "reda@gmail.com", Gender.MALE));
+//        when
+        byte[] actual = underTest.writeValueAsBytes(withEmptyName);
+//        then
+        assertThat(actual).isEqualTo(defaultMapper.writeValueAsBytes(withEmptyName));
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.demo.student.repository;
+
+import com.example.demo.config.SqlStatistics;
+import com.example.demo.config.SqlStatisticsConfig;
+import com.example.demo.student.Gender;
+import com.example.demo.student.StudentProperties;
+import com.example.demo.student.StudentRepository;
+import com.example.demo.student.StudentSearch;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs each StudentRepository query against the migrated schema, captures the
+ * SQL Hibernate sends and checks its generic plan reads the student table
+ * through an index. Sequential scans are disabled, so the planner only falls
+ * back to one when no index can serve the query. The unpaged list is read
+ * in id order, so it is covered too; the export is meant to scan and is not.
+ * Generic plans need Postgres 16 or later, hence the pinned image, and the
+ * simple query protocol.
+ * <p>
+ * A LIKE pattern only becomes an index range once its value is known, so the
+ * name prefix search is explained with its parameters bound instead.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({SqlStatisticsConfig.class, StudentProperties.class})
+@Tag("Integration")
+@Testcontainers
+class StudentQueryPlanIntegrationTest {
+
+    @Container
+    private static PostgreSQLContainer<?> postgreSQLContainer = new PostgreSQLContainer<>("postgres:16");
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @DynamicPropertySource
+    static void overrideProps(DynamicPropertyRegistry registry) {
+        // The simple query protocol sends EXPLAIN (GENERIC_PLAN) with its $n
+        // placeholders as text; the extended one would expect values for them.
+        registry.add("spring.datasource.url", () -> postgreSQLContainer.getJdbcUrl() + "&preferQueryMode=simple");
+        registry.add("spring.datasource.username", postgreSQLContainer::getUsername);
+        registry.add("spring.datasource.password", postgreSQLContainer::getPassword);
+        registry.add("spring.datasource.driverClassName", postgreSQLContainer::getDriverClassName);
+        registry.add("spring.flyway.enabled", () -> "true");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+    }
+
+    @Test
+    void selectExistsEmail_UsesIndex() {
+        assertUsesIndex(() -> studentRepository.selectExistsEmail("reda@gmail.com"));
+    }
+
+    @Test
+    void selectExistingEmails_UsesIndex() {
+        assertUsesIndex(() -> studentRepository.selectExistingEmails(Arrays.asList("reda@gmail.com", "wafaa@gmail.com")));
+    }
+
+    @Test
+    void findViewsAfter_FirstPage_UsesIndex() {
+        assertUsesIndex(() -> studentRepository.findViewsAfter(Set.of("id", "email"), null, 100));
+    }
+
+    @Test
+    void findViewsAfter_UsesIndex() {
+        assertUsesIndex(() -> studentRepository.findViewsAfter(Set.of("id", "email"), 100L, 100));
+    }
+
+    @Test
+    void findAllViews_UsesIndex() {
+        assertUsesIndex(() -> studentRepository.findAllViews(Set.of("id", "name", "email", "gender")));
+    }
+
+    @Test
+    void findById_UsesIndex() {
+        assertUsesIndex(() -> studentRepository.findById(1L));
+    }
+
+    @Test
+    void existsById_UsesIndex() {
+        assertUsesIndex(() -> studentRepository.existsById(1L));
+    }
+
+    @Test
+    void deleteStudentById_UsesIndex() {
+        assertUsesIndex(() -> studentRepository.deleteStudentById(1L));
+    }
+
+    @Test
+    void deleteStudentsByIdIn_UsesIndex() {
+        assertUsesIndex(() -> studentRepository.deleteStudentsByIdIn(Arrays.asList(1L, 2L)));
+    }
+
+    @Test
+    void search_ByNamePrefix_UsesIndex() {
+        assertUsesIndex("student_lower_name_idx",
+                () -> studentRepository.search(new StudentSearch("Re", null, null), null, 100),
+                "re%", 100);
+    }
+
+    @Test
+    void search_ByEmailDomain_UsesIndex() {
+        assertUsesIndex("student_email_domain_id_idx",
+                () -> studentRepository.search(new StudentSearch(null, "gmail.com", null), 100L, 100));
+    }
+
+    @Test
+    void search_ByGender_UsesIndex() {
+        assertUsesIndex("student_gender_id_idx",
+                () -> studentRepository.search(new StudentSearch(null, null, Gender.FEMALE), 100L, 100));
+    }
+
+    private void assertUsesIndex(Runnable query) {
+        assertUsesIndex("Index", query);
+    }
+
+    /**
+     * Asserts every statement run by {@code query} is planned with the given
+     * index, binding {@code parameters} to the plan when there are any.
+     */
+    private void assertUsesIndex(String index, Runnable query, Object... parameters) {
+//        given
+        SqlStatistics recording = SqlStatistics.start();
+        try {
+            query.run();
+        } finally {
+            SqlStatistics.stop();
+        }
+        entityManager.createNativeQuery("SELECT set_config('enable_seqscan', 'off', true)").getSingleResult();
+//        when
+        List<String> plans = recording.getStatements().stream()
+                .map(sql -> explain(sql, parameters))
+                .collect(Collectors.toList());
+//        then
+        assertThat(plans).isNotEmpty();
+        for (int i = 0; i < plans.size(); i++) {
+            assertThat(plans.get(i)).as("Plan of %s", recording.getStatements().get(i))
+                    .doesNotContain("Seq Scan")
+                    .contains(index);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private String explain(String sql, Object... parameters) {
+        List<String> plan;
+        if (parameters.length > 0) {
+            Query explain = entityManager.createNativeQuery("EXPLAIN " + sql);
+            for (int i = 0; i < parameters.length; i++) {
+                explain.setParameter(i + 1, parameters[i]);
+            }
+            plan = explain.getResultList();
+        } else {
+            plan = entityManager
+                    .createNativeQuery("EXPLAIN (GENERIC_PLAN) " + numbered(sql))
+                    .getResultList();
+        }
+        return plan.stream().collect(Collectors.joining("\n"));
+    }
+
+    private static String numbered(String sql) {
+        StringBuilder numbered = new StringBuilder();
+        int parameter = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                numbered.append('$').append(++parameter);
+            } else {
+                numbered.append(c);
+            }
+        }
+        return numbered.toString();
+    }
+}
@@ -10,6 +10,7 @@ import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.context.jdbc.Sql;
@@ -17,7 +18,10 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.sql.SQLException;
+
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 
 @DataJpaTest
 @Tag("Integration")
@@ -77,4 +81,19 @@ public class StudentRepositoryIntegrationTest {
         assertThat(result).isFalse();
     }
 
+    @Test
+    @Sql(statements = "INSERT INTO student(id,name,email,gender) VALUES ('1','Jamila','jamila@gmail.com','FEMALE')",executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(statements = "DELETE FROM student WHERE id=1",executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    void saveAndFlush_EmailExists_ThrowsUniqueViolation() {
+//        given
+        Student student = new Student("Jamila", "jamila@gmail.com", Gender.FEMALE);
+
+//        when
+//        then
+        assertThatThrownBy(() -> underTest.saveAndFlush(student))
+                .isInstanceOf(DataIntegrityViolationException.class)
+                .hasRootCauseInstanceOf(SQLException.class)
+                .satisfies(e -> assertThat(((SQLException) ((DataIntegrityViolationException) e).getRootCause()).getSQLState()).isEqualTo("23505"));
+    }
+
 }
@@ -3,12 +3,18 @@ package com.example.demo.student.repository;
 import com.example.demo.student.Gender;
 import com.example.demo.student.Student;
 import com.example.demo.student.StudentRepository;
+import com.example.demo.student.StudentView;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 
 @DataJpaTest
@@ -49,4 +55,101 @@ public class StudentRepositoryTest {
 //        then
         assertThat(result).isFalse();
     }
+
+    @Test
+    void findViewsAfter_ReturnsNextPageInIdOrder() {
+//        given
+        List<Student> students = underTest.saveAll(Arrays.asList(
+                new Student("Jamila", "jamila@gmail.com", Gender.FEMALE),
+                new Student("Reda", "reda@gmail.com", Gender.MALE),
+                new Student("Wafaa", "wafaa@gmail.com", Gender.FEMALE)
+        ));
+        underTest.flush();
+        Long firstId = underTest.findViewsAfter(Set.of("id"), null, 1).get(0).getId();
+
+//        when
+        List<StudentView> result = underTest.findViewsAfter(Set.of("id", "email"), firstId, 1);
+
+//        then
+        assertThat(result.size()).isEqualTo(1);
+        assertThat(result.get(0)).isEqualTo(
+                new StudentView(students.get(1).getId(), null, "reda@gmail.com", null));
+    }
+
+    @Test
+    void forEachStudent_VisitsEveryStudentInIdOrder() {
+//        given
+        List<Student> students = underTest.saveAll(Arrays.asList(
+                new Student("Jamila", "jamila@gmail.com", Gender.FEMALE),
+                new Student("Reda", "reda@gmail.com", Gender.MALE)
+        ));
+        List<Student> visited = new ArrayList<>();
+
+//        when
+        underTest.forEachStudent(visited::add);
+
+//        then
+        assertThat(visited).isEqualTo(students);
+    }
+
+    @Test
+    void insertAll_AssignsFreshIdsAndPersistsEveryStudent() {
+//        given
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            students.add(new Student("Student " + i, "student" + i + "@gmail.com", Gender.OTHER));
+        }
+        students.get(0).setId(999L);
+
+//        when
+        List<Student> inserted = underTest.insertAll(students);
+
+//        then
+        assertThat(inserted.size()).isEqualTo(120);
+        assertThat(inserted.stream().map(Student::getId).distinct().count()).isEqualTo(120L);
+        assertThat(inserted.get(0).getId()).isNotEqualTo(999L);
+        assertThat(underTest.count()).isEqualTo(120L);
+    }
+
+    @Test
+    void selectExistingEmails_ReturnsOnlyTakenEmails() {
+//        given
+        underTest.save(new Student("Jamila", "jamila@gmail.com", Gender.FEMALE));
+
+//        when
+        Set<String> result = underTest.selectExistingEmails(Arrays.asList("jamila@gmail.com", "reda@gmail.com"));
+
+//        then
+        assertThat(result).isEqualTo(Set.of("jamila@gmail.com"));
+    }
+
+    @Test
+    void deleteStudentById_ReturnsAffectedRowCount() {
+//        given
+        Student student = underTest.save(new Student("Jamila", "jamila@gmail.com", Gender.FEMALE));
+
+//        when
+        int deleted = underTest.deleteStudentById(student.getId());
+        int deletedAgain = underTest.deleteStudentById(student.getId());
+
+//        then
+        assertThat(deleted).isEqualTo(1);
+        assertThat(deletedAgain).isEqualTo(0);
+    }
+
+    @Test
+    void deleteStudentsByIdIn_IgnoresUnknownIds() {
+//        given
+        List<Student> students = underTest.saveAll(Arrays.asList(
+                new Student("Jamila", "jamila@gmail.com", Gender.FEMALE),
+                new Student("Reda", "reda@gmail.com", Gender.MALE)
+        ));
+
+//        when
+        int deleted = underTest.deleteStudentsByIdIn(Arrays.asList(students.get(0).getId(), -1L));
+
+//        then
+        assertThat(deleted).isEqualTo(1);
+        assertThat(underTest.count()).isEqualTo(1L);
+    }
 }
@@ -0,0 +1,65 @@
+package com.example.demo.student.service;
+
+import com.example.demo.student.EmailBloomFilter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+
+@Tag("Unit")
+class EmailBloomFilterTest {
+
+    @Test
+    void mightContain_EmailWasPut_True() {
+//        given
+        EmailBloomFilter underTest = new EmailBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            underTest.put("student" + i + "@gmail.com");
+        }
+//        when
+//        then
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(underTest.mightContain("student" + i + "@gmail.com")).isTrue();
+        }
+    }
+
+    @Test
+    void mightContain_EmailNeverPut_FalsePositiveRateCloseToConfigured() {
+//        given
+        EmailBloomFilter underTest = new EmailBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            underTest.put("student" + i + "@gmail.com");
+        }
+//        when
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (underTest.mightContain("other" + i + "@gmail.com")) {
+                falsePositives++;
+            }
+        }
+//        then
+        assertThat(falsePositives).isLessThan(300);
+        assertThat(underTest.expectedFalsePositiveRate()).isBetween(0.001, 0.03);
+        assertThat(underTest.approximateElementCount()).isBetween(9_500L, 10_500L);
+    }
+
+    @Test
+    void mightContain_EmptyFilter_False() {
+//        given
+        EmailBloomFilter underTest = new EmailBloomFilter(100, 0.01);
+//        when
+//        then
+        assertThat(underTest.mightContain("jamila@gmail.com")).isFalse();
+        assertThat(underTest.approximateElementCount()).isEqualTo(0L);
+    }
+
+    @Test
+    void constructor_InvalidProbability_ThrowsIllegalArgumentException() {
+//        when
+//        then
+        assertThatThrownBy(() -> new EmailBloomFilter(100, 1.5))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("False positive probability must be between 0 and 1");
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.demo.student.service;
+
+import com.example.demo.student.SingleFlight;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+
+@Tag("Unit")
+class SingleFlightTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private final AtomicInteger computations = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private SingleFlight<String, String> underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new SingleFlight<>("test");
+        underTest.bindTo(registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void execute_ConcurrentIdenticalCalls_ComputeOnce() throws Exception {
+//        given
+        Supplier<String> supplier = blockingSupplier(() -> "students");
+//        when
+        List<Future<String>> results = callConcurrently("key", supplier, 4);
+        release.countDown();
+//        then
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("students");
+        }
+        assertThat(computations.get()).isEqualTo(1);
+        assertThat(calls("executed")).isEqualTo(1.0);
+        assertThat(calls("shared")).isEqualTo(3.0);
+        assertThat(underTest.coalescingRatio()).isEqualTo(0.75);
+    }
+
+    @Test
+    void execute_ComputationFails_FailsEveryWaitingCall() throws Exception {
+//        given
+        Supplier<String> supplier = blockingSupplier(() -> {
+            throw new IllegalArgumentException("boom");
+        });
+//        when
+        List<Future<String>> results = callConcurrently("key", supplier, 3);
+        release.countDown();
+//        then
+        for (Future<String> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(IllegalArgumentException.class);
+        }
+        assertThat(computations.get()).isEqualTo(1);
+    }
+
+    @Test
+    void execute_DifferentKeys_ComputeEach() {
+//        given
+//        when
+        String first = underTest.execute("first", () -> "value " + computations.incrementAndGet());
+        String second = underTest.execute("second", () -> "value " + computations.incrementAndGet());
+//        then
+        assertThat(first).isEqualTo("value 1");
+        assertThat(second).isEqualTo("value 2");
+        assertThat(underTest.coalescingRatio()).isEqualTo(0.0);
+    }
+
+    @Test
+    void execute_AfterComputationFinished_ComputesAgain() {
+//        given
+        underTest.execute("key", () -> "value " + computations.incrementAndGet());
+//        when
+        String value = underTest.execute("key", () -> "value " + computations.incrementAndGet());
+//        then
+        assertThat(value).isEqualTo("value 2");
+        assertThat(calls("executed")).isEqualTo(2.0);
+    }
+
+    /**
+     * Counts its calls and holds them until {@link #release} opens.
+     */
+    private Supplier<String> blockingSupplier(Supplier<String> value) {
+        return () -> {
+            computations.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return value.get();
+        };
+    }
+
+    /**
+     * Calls with the same key from threads of their own and returns once all
+     * of them are running or waiting for the running one.
+     */
+    private List<Future<String>> callConcurrently(String key, Supplier<String> supplier, int count)
+            throws InterruptedException {
+        List<Future<String>> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            results.add(callers.submit(() -> underTest.execute(key, supplier)));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (calls("executed") + calls("shared") < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        return results;
+    }
+
+    private double calls(String result) {
+        return registry.get("student.single-flight.calls")
+                .tag("flight", "test")
+                .tag("result", result)
+                .functionCounter()
+                .count();
+    }
+}
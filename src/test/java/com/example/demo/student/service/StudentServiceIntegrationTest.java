@@ -2,15 +2,21 @@ package com.example.demo.student.service;
 
 import com.example.demo.student.Gender;
 import com.example.demo.student.Student;
+import com.example.demo.student.StudentBatchReport;
+import com.example.demo.student.StudentPage;
 import com.example.demo.student.StudentRepository;
+import com.example.demo.student.StudentSearch;
 import com.example.demo.student.StudentService;
+import com.example.demo.student.StudentView;
 import com.example.demo.student.exception.BadRequestException;
 import com.example.demo.student.exception.StudentNotFoundException;
+import com.example.demo.utils.SqlBudget;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.context.jdbc.Sql;
@@ -19,6 +25,7 @@ import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
@@ -38,6 +45,9 @@ public class StudentServiceIntegrationTest {
     @Autowired
     private StudentRepository studentRepository;
 
+    @Autowired
+    private CacheManager cacheManager;
+
     @DynamicPropertySource
     static void overrideProps(DynamicPropertyRegistry registry) {
         registry.add("spring.datasource.url", postgreSQLContainer::getJdbcUrl);
@@ -49,6 +59,7 @@ public class StudentServiceIntegrationTest {
     @AfterEach
     void tearDown() {
         studentRepository.deleteAll();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
     }
 
 
@@ -60,11 +71,113 @@ public class StudentServiceIntegrationTest {
                 new Student(2L, "wafaa", "wafaa@gmail.com", Gender.FEMALE)
         );
 //        when
-        List<Student> students = underTest.getAllStudents();
+        List<StudentView> students = SqlBudget.atMost(1).maxConnections(1).get(() -> underTest.getAllStudents(null));
 //        then
         assertThat(students).usingRecursiveComparison().ignoringCollectionOrder().isEqualTo(expectedStudents);
     }
 
+    @Test
+    @Sql(statements = "INSERT INTO student(id,name,email,gender) VALUES ('1','reda','reda@gmail.com','MALE'),('2','wafaa','wafaa@gmail.com','FEMALE')", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    void getStudentsAfter_SparseFields_ReadsOnlyThoseColumns() {
+//        when
+        StudentPage<StudentView> page = underTest.getStudentsAfter(1L, 10, Collections.singleton("email"));
+//        then
+        assertThat(page.getStudents()).usingRecursiveComparison()
+                .isEqualTo(List.of(new StudentView(2L, null, "wafaa@gmail.com", null)));
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    @Sql(statements = "INSERT INTO student(id,name,email,gender) VALUES " +
+            "('1','Reda','reda@Gmail.com','MALE'),('2','redouane','redouane@yahoo.fr','MALE')," +
+            "('3','re_da','re_da@gmail.com','MALE'),('4','Rania','rania@gmail.com','FEMALE'),('5','wafaa','wafaa@GMAIL.COM','MALE')",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    void searchStudents_CombinesFiltersIgnoringCase() {
+//        given
+        StudentSearch search = new StudentSearch("RE", "gmail.COM", Gender.MALE);
+//        when
+        StudentPage<Student> firstPage = underTest.searchStudents(search, null, 1);
+        StudentPage<Student> secondPage = underTest.searchStudents(search, firstPage.getNextCursor(), 1);
+        StudentPage<Student> lastPage = underTest.searchStudents(search, secondPage.getNextCursor(), 1);
+//        then
+        assertThat(firstPage.getStudents()).usingRecursiveComparison()
+                .isEqualTo(List.of(new Student(1L, "Reda", "reda@Gmail.com", Gender.MALE)));
+        assertThat(secondPage.getStudents()).usingRecursiveComparison()
+                .isEqualTo(List.of(new Student(3L, "re_da", "re_da@gmail.com", Gender.MALE)));
+        assertThat(lastPage.getStudents().isEmpty()).isTrue();
+        assertThat(lastPage.getNextCursor()).isNull();
+    }
+
+    @Test
+    @Sql(statements = "INSERT INTO student(id,name,email,gender) VALUES ('1','reda','reda@gmail.com','MALE'),('2','re_da','re_da@gmail.com','MALE')",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    void searchStudents_WildcardInPrefix_MatchesLiterally() {
+//        when
+        StudentPage<Student> page = underTest.searchStudents(new StudentSearch("re_", null, null), null, 10);
+//        then
+        assertThat(page.getStudents()).usingRecursiveComparison()
+                .isEqualTo(List.of(new Student(2L, "re_da", "re_da@gmail.com", Gender.MALE)));
+    }
+
+    @Test
+    @Sql(statements = "INSERT INTO student(id,name,email,gender) VALUES ('3','reda','reda@gmail.com','MALE')", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    void getStudent_SecondLookup_ServedFromCache() {
+//        given
+        Long id = 3L;
+        Student expectedStudent = new Student(id, "reda", "reda@gmail.com", Gender.MALE);
+        underTest.getStudent(id);
+        studentRepository.deleteAll();
+//        when
+        Student cachedStudent = SqlBudget.atMost(0).get(() -> underTest.getStudent(id));
+//        then
+        assertThat(cachedStudent).isEqualTo(expectedStudent);
+    }
+
+    @Test
+    @Sql(statements = "INSERT INTO student(id,name,email,gender) VALUES ('3','reda','reda@gmail.com','MALE')", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    void getStudent_NotCached_UsesOneConnection() {
+//        when
+        Student student = SqlBudget.atMost(1).maxConnections(1).get(() -> underTest.getStudent(3L));
+//        then
+        assertThat(student.getEmail()).isEqualTo("reda@gmail.com");
+    }
+
+    @Test
+    @Sql(statements = "INSERT INTO student(id,name,email,gender) VALUES ('3','reda','reda@gmail.com','MALE'),('4','wafaa','wafaa@gmail.com','FEMALE')", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    void deleteStudents_UsesOneConnection() {
+//        when
+        int deleted = SqlBudget.atMost(1).maxConnections(1).get(() -> underTest.deleteStudents(Arrays.asList(3L, 4L, 5L)));
+//        then
+        assertThat(deleted).isEqualTo(2);
+    }
+
+    @Test
+    void addStudents_UsesOneConnectionPerChunk() {
+//        given
+        List<Student> students = Arrays.asList(
+                new Student("Jamila", "jamila@gmail.com", Gender.FEMALE),
+                new Student("Reda", "reda@gmail.com", Gender.MALE),
+                new Student("Wafaa", "wafaa@gmail.com", Gender.FEMALE)
+        );
+//        when
+        StudentBatchReport report = SqlBudget.atMost(10).maxConnections(2).get(() -> underTest.addStudents(students, 2));
+//        then
+        assertThat(report.getInserted().size()).isEqualTo(3);
+    }
+
+    @Test
+    @Sql(statements = "INSERT INTO student(id,name,email,gender) VALUES ('3','reda','reda@gmail.com','MALE')", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    void deleteStudent_CachedStudent_EvictsIt() {
+//        given
+        Long id = 3L;
+        underTest.getStudent(id);
+//        when
+        SqlBudget.atMost(1).maxConnections(1).run(() -> underTest.deleteStudent(id));
+//        then
+        assertThatThrownBy(() -> underTest.getStudent(id))
+                .isInstanceOf(StudentNotFoundException.class);
+    }
+
     @Test
     void addStudent_EmailIsNotTaken_ReturnsStudent() {
 //        given
@@ -75,7 +188,8 @@ public class StudentServiceIntegrationTest {
                 Gender.FEMALE
         );
 //        when
-        Student actualStudent = underTest.addStudent(student);
+        // email probe, up to two sequence calls on the first allocation, insert
+        Student actualStudent = SqlBudget.atMost(4).maxConnections(1).get(() -> underTest.addStudent(student));
 //        then
         assertThat(actualStudent).isEqualTo(student);
     }
@@ -103,7 +217,7 @@ public class StudentServiceIntegrationTest {
 //        given
         Long id = 2L;
 //        when
-        underTest.deleteStudent(id);
+        SqlBudget.atMost(1).run(() -> underTest.deleteStudent(id));
 //        then
         Boolean exists = studentRepository.existsById(id);
         assertThat(exists).isFalse();
@@ -1,9 +1,17 @@
 package com.example.demo.student.service;
 
 import com.example.demo.student.Gender;
+import com.example.demo.student.KnownEmailFilter;
 import com.example.demo.student.Student;
 import com.example.demo.student.StudentRepository;
+import com.example.demo.student.StudentBatchReport;
+import com.example.demo.student.StudentPage;
+import com.example.demo.student.StudentProperties;
+import com.example.demo.student.StudentSearch;
 import com.example.demo.student.StudentService;
+import com.example.demo.student.StudentTableVersion;
+import com.example.demo.student.StudentView;
+import com.example.demo.student.StudentWriteBatcher;
 import com.example.demo.student.exception.BadRequestException;
 import com.example.demo.student.exception.StudentNotFoundException;
 import org.junit.jupiter.api.Tag;
@@ -12,14 +20,31 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+
+import javax.validation.Validator;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 @ExtendWith(MockitoExtension.class)
 @Tag("Unit")
@@ -29,20 +54,161 @@ class StudentServiceTest {
     @Mock
     private StudentRepository studentRepository;
 
+    @Spy
+    private StudentProperties studentProperties = new StudentProperties();
+
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private KnownEmailFilter knownEmailFilter;
+
+    @Mock
+    private StudentTableVersion studentTableVersion;
+
+    @Mock
+    private TransactionOperations transactionOperations;
+
+    @Mock
+    private StudentWriteBatcher studentWriteBatcher;
+
     @InjectMocks
     private StudentService underTest;
 
     @Test
-    void getAllStudents__ReturnsAllStudents() {
+    void getAllStudents_NoFields_SelectsEveryField() {
+//        when
+        underTest.getAllStudents(null);
+//        then
+        verify(studentRepository).findAllViews(new LinkedHashSet<>(StudentView.FIELDS));
+    }
+
+    @Test
+    void getAllStudents_SparseFields_AlsoSelectsId() {
+//        when
+        underTest.getAllStudents(Collections.singleton("email"));
+//        then
+        verify(studentRepository).findAllViews(new LinkedHashSet<>(Arrays.asList("email", "id")));
+    }
+
+    @Test
+    void getAllStudents_UnknownField_ThrowsBadRequestException() {
+//        when
+//        then
+        assertThatThrownBy(() -> underTest.getAllStudents(Collections.singleton("password")))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("Unknown field password");
+
+        verify(studentRepository, never()).findAllViews(any());
+    }
+
+    @Test
+    void getStudent_IdExists_ReturnsStudent() {
+//        given
+        Student student = new Student(2L, "reda", "reda@gmail.com", Gender.MALE);
+        given(studentRepository.findById(2L)).willReturn(Optional.of(student));
+//        when
+        Student actualStudent = underTest.getStudent(2L);
+//        then
+        assertThat(actualStudent).isEqualTo(student);
+    }
+
+    @Test
+    void getStudent_IdNotExists_ThrowsStudentNotFoundException() {
+//        given
+        Long id = 2L;
+        given(studentRepository.findById(id)).willReturn(Optional.empty());
+//        when
+//        then
+        assertThatThrownBy(() -> underTest.getStudent(id)).isInstanceOf(
+                StudentNotFoundException.class
+        ).hasMessageContaining("Student with id " + id + " does not exists");
+    }
+
+    @Test
+    void getStudentsAfter_NoCursor_ReturnsFirstPage() {
+//        given
+        given(studentRepository.findViewsAfter(new LinkedHashSet<>(StudentView.FIELDS), null, 2))
+                .willReturn(Arrays.asList(
+                        new StudentView(1L, "reda", "reda@gmail.com", Gender.MALE),
+                        new StudentView(2L, "wafaa", "wafaa@gmail.com", Gender.FEMALE)
+                ));
+//        when
+        StudentPage<StudentView> page = underTest.getStudentsAfter(null, 2, null);
+//        then
+        assertThat(page.getStudents().size()).isEqualTo(2);
+        assertThat(page.getNextCursor()).isEqualTo(2L);
+    }
+
+    @Test
+    void getStudentsAfter_LastPage_ReturnsNoCursor() {
+//        given
+        given(studentRepository.findViewsAfter(new LinkedHashSet<>(StudentView.FIELDS), 2L, 2))
+                .willReturn(Arrays.asList(
+                        new StudentView(3L, "jamila", "jamila@gmail.com", Gender.FEMALE)
+                ));
+//        when
+        StudentPage<StudentView> page = underTest.getStudentsAfter(2L, 2, null);
+//        then
+        assertThat(page.getStudents().size()).isEqualTo(1);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void getStudentsAfter_LimitTooLarge_ThrowsBadRequestException() {
+//        when
+//        then
+        assertThatThrownBy(() -> underTest.getStudentsAfter(null, StudentService.MAX_PAGE_SIZE + 1, null))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("Limit must be between 1 and " + StudentService.MAX_PAGE_SIZE);
+
+        verify(studentRepository, never()).findViewsAfter(any(), any(), anyInt());
+    }
+
+    @Test
+    void searchStudents_FullPage_ReturnsNextCursor() {
+//        given
+        StudentSearch search = new StudentSearch("re", "gmail.com", Gender.MALE);
+        given(studentRepository.search(search, 1L, 2))
+                .willReturn(Arrays.asList(
+                        new Student(3L, "reda", "reda@gmail.com", Gender.MALE),
+                        new Student(7L, "remi", "remi@gmail.com", Gender.MALE)
+                ));
+//        when
+        StudentPage<Student> page = underTest.searchStudents(search, 1L, 2);
+//        then
+        assertThat(page.getStudents().size()).isEqualTo(2);
+        assertThat(page.getNextCursor()).isEqualTo(7L);
+    }
+
+    @Test
+    void searchStudents_LimitTooSmall_ThrowsBadRequestException() {
+//        given
+        StudentSearch search = new StudentSearch("re", null, null);
+//        when
+//        then
+        assertThatThrownBy(() -> underTest.searchStudents(search, null, 0))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("Limit must be between 1 and " + StudentService.MAX_PAGE_SIZE);
+
+        verify(studentRepository, never()).search(any(), any(), anyInt());
+    }
+
+    @Test
+    void exportStudents_StreamsFromRepositoryCursor() {
+//        given
+        Consumer<Student> consumer = student -> {
+        };
 //        when
-        underTest.getAllStudents();
+        underTest.exportStudents(consumer);
 //        then
-        verify(studentRepository).findAll();
+        verify(studentRepository).forEachStudent(consumer);
     }
 
     @Test
     void addStudent_EmailIsNotTaken_ReturnsStudent() {
 //        given
+        runCallbacksInTransaction();
         String email = "jamila@gmail.com";
         Student student = new Student(
                 "Jamila",
@@ -54,21 +220,25 @@ class StudentServiceTest {
 //        then
         ArgumentCaptor<Student> studentArgumentCaptor = ArgumentCaptor.forClass(Student.class);
 
-        verify(studentRepository).save(studentArgumentCaptor.capture());
+        verify(studentRepository).saveAndFlush(studentArgumentCaptor.capture());
         Student capturedStudent = studentArgumentCaptor.getValue();
 
         assertThat(capturedStudent).isEqualTo(student);
+        verify(studentTableVersion).increment();
     }
 
     @Test
     void addStudent_EmailIsTaken_ThrowsBadRequestException() {
 //        given
+        runCallbacksInTransaction();
         String email = "jamila@gmail.com";
         Student student = new Student(
                 "Jamila",
                 "jamila@gmail.com",
                 Gender.FEMALE
         );
+        given(knownEmailFilter.mightContain(anyString()))
+                .willReturn(true);
         given(studentRepository.selectExistsEmail(anyString()))
                 .willReturn(true);
 //        when
@@ -78,35 +248,325 @@ class StudentServiceTest {
                 .hasMessageContaining("Email " + student.getEmail() + " taken");
         ;
 
-        verify(studentRepository, never()).save(any());
+        verify(studentRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void addStudent_EmailNotInFilter_SkipsEmailQuery() {
+//        given
+        runCallbacksInTransaction();
+        Student student = new Student(
+                "Jamila",
+                "jamila@gmail.com",
+                Gender.FEMALE
+        );
+        given(studentRepository.saveAndFlush(student)).willReturn(student);
+//        when
+        underTest.addStudent(student);
+//        then
+        verify(studentRepository, never()).selectExistsEmail(anyString());
+        verify(knownEmailFilter).add("jamila@gmail.com");
+    }
+
+    @Test
+    void addStudent_FilterFalsePositive_QueriesEmailAndRecordsIt() {
+//        given
+        runCallbacksInTransaction();
+        Student student = new Student(
+                "Jamila",
+                "jamila@gmail.com",
+                Gender.FEMALE
+        );
+        given(knownEmailFilter.mightContain("jamila@gmail.com")).willReturn(true);
+        given(studentRepository.selectExistsEmail("jamila@gmail.com")).willReturn(false);
+        given(studentRepository.saveAndFlush(student)).willReturn(student);
+//        when
+        underTest.addStudent(student);
+//        then
+        verify(knownEmailFilter).recordFalsePositive();
+        verify(studentRepository).saveAndFlush(student);
+    }
+
+    @Test
+    void addStudents_NoEmailInFilter_SkipsEmailQuery() {
+//        given
+        runCallbacksInTransaction();
+        List<Student> students = Arrays.asList(
+                new Student("Jamila", "jamila@gmail.com", Gender.FEMALE),
+                new Student("Reda", "reda@gmail.com", Gender.MALE)
+        );
+        given(studentRepository.insertAll(anyCollection()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+//        when
+        StudentBatchReport report = underTest.addStudents(students, null);
+//        then
+        verify(studentRepository, never()).selectExistingEmails(anyCollection());
+        assertThat(report.getInserted().size()).isEqualTo(2);
+    }
+
+    @Test
+    void addStudent_InsertMode_SkipsEmailQuery() {
+//        given
+        runCallbacksInTransaction();
+        studentProperties.setInsertMode(StudentProperties.InsertMode.INSERT);
+        Student student = new Student(
+                "Jamila",
+                "jamila@gmail.com",
+                Gender.FEMALE
+        );
+//        when
+        underTest.addStudent(student);
+//        then
+        verify(studentRepository, never()).selectExistsEmail(anyString());
+        verify(studentRepository).saveAndFlush(student);
+    }
+
+    @Test
+    void addStudent_GroupCommitEnabled_HandsStudentToBatcher() {
+//        given
+        studentProperties.getGroupCommit().setEnabled(true);
+        Student student = new Student(
+                "Jamila",
+                "jamila@gmail.com",
+                Gender.FEMALE
+        );
+        given(studentWriteBatcher.add(student)).willReturn(student);
+//        when
+        Student actualStudent = underTest.addStudent(student);
+//        then
+        assertThat(actualStudent).isEqualTo(student);
+        verify(transactionOperations, never()).execute(any());
+        verify(studentRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void addStudent_UniqueConstraintViolated_ThrowsBadRequestException() {
+//        given
+        runCallbacksInTransaction();
+        studentProperties.setInsertMode(StudentProperties.InsertMode.INSERT);
+        Student student = new Student(
+                "Jamila",
+                "jamila@gmail.com",
+                Gender.FEMALE
+        );
+        given(studentRepository.saveAndFlush(any()))
+                .willThrow(new DataIntegrityViolationException(
+                        "could not execute statement",
+                        new SQLException("duplicate key value violates unique constraint", "23505")));
+//        when
+//        then
+        assertThatThrownBy(() -> underTest.addStudent(student))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("Email " + student.getEmail() + " taken");
+    }
+
+    @Test
+    void addStudent_OtherConstraintViolated_RethrowsException() {
+//        given
+        runCallbacksInTransaction();
+        Student student = new Student(
+                "Jamila",
+                "jamila@gmail.com",
+                Gender.FEMALE
+        );
+        given(knownEmailFilter.mightContain(anyString()))
+                .willReturn(true);
+        given(studentRepository.selectExistsEmail(anyString()))
+                .willReturn(false);
+        given(studentRepository.saveAndFlush(any()))
+                .willThrow(new DataIntegrityViolationException(
+                        "could not execute statement",
+                        new SQLException("null value in column violates not-null constraint", "23502")));
+//        when
+//        then
+        assertThatThrownBy(() -> underTest.addStudent(student))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void addStudents_SomeEmailsTaken_InsertsOthersAndReportsRejected() {
+//        given
+        runCallbacksInTransaction();
+        List<Student> students = Arrays.asList(
+                new Student("Jamila", "jamila@gmail.com", Gender.FEMALE),
+                new Student("Reda", "reda@gmail.com", Gender.MALE),
+                new Student("Reda bis", "reda@gmail.com", Gender.MALE)
+        );
+        given(knownEmailFilter.mightContain(anyString()))
+                .willReturn(true);
+        given(studentRepository.selectExistingEmails(anyCollection()))
+                .willReturn(Collections.singleton("jamila@gmail.com"));
+        given(studentRepository.insertAll(anyCollection()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+//        when
+        StudentBatchReport report = underTest.addStudents(students, null);
+
+//        then
+        assertThat(report.getInserted()).isEqualTo(Collections.singletonList(students.get(1)));
+        assertThat(report.getRejected()).isEqualTo(Arrays.asList(
+                new StudentBatchReport.RejectedStudent(0, "jamila@gmail.com", "Email jamila@gmail.com taken"),
+                new StudentBatchReport.RejectedStudent(2, "reda@gmail.com", "Email reda@gmail.com appears more than once")
+        ));
+    }
+
+    @Test
+    void addStudents_ChunkSizeGiven_QueriesEmailsOncePerChunk() {
+//        given
+        runCallbacksInTransaction();
+        List<Student> students = Arrays.asList(
+                new Student("Jamila", "jamila@gmail.com", Gender.FEMALE),
+                new Student("Reda", "reda@gmail.com", Gender.MALE),
+                new Student("Wafaa", "wafaa@gmail.com", Gender.FEMALE)
+        );
+        given(knownEmailFilter.mightContain(anyString()))
+                .willReturn(true);
+        given(studentRepository.selectExistingEmails(anyCollection()))
+                .willReturn(Collections.emptySet());
+        given(studentRepository.insertAll(anyCollection()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+//        when
+        StudentBatchReport report = underTest.addStudents(students, 2);
+
+//        then
+        verify(studentRepository, times(2)).selectExistingEmails(anyCollection());
+        verify(studentRepository, times(2)).insertAll(anyCollection());
+        assertThat(report.getInserted().size()).isEqualTo(3);
+        assertThat(report.getRejected().isEmpty()).isTrue();
+    }
+
+    @Test
+    void addStudents_ChunkRejectedByDatabase_RollsItBackAndInsertsNextChunk() {
+//        given
+        List<SimpleTransactionStatus> statuses = runCallbacksInTransaction();
+        List<Student> students = Arrays.asList(
+                new Student("Jamila", "jamila@gmail.com", Gender.FEMALE),
+                new Student("Reda", "reda@gmail.com", Gender.MALE)
+        );
+        given(studentRepository.insertAll(anyCollection()))
+                .willThrow(new DataIntegrityViolationException("could not execute batch"))
+                .willAnswer(invocation -> invocation.getArgument(0));
+//        when
+        StudentBatchReport report = underTest.addStudents(students, 1);
+//        then
+        assertThat(statuses.get(0).isRollbackOnly()).isTrue();
+        assertThat(statuses.get(1).isRollbackOnly()).isFalse();
+        assertThat(report.getInserted()).isEqualTo(Collections.singletonList(students.get(1)));
+        assertThat(report.getRejected().get(0).getIndex()).isEqualTo(0);
+        verify(studentTableVersion, times(1)).increment();
+    }
+
+    @Test
+    void addStudents_ChunkSizeTooLarge_ThrowsBadRequestException() {
+//        when
+//        then
+        assertThatThrownBy(() -> underTest.addStudents(Collections.emptyList(), StudentService.MAX_CHUNK_SIZE + 1))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("Chunk size must be between 1 and " + StudentService.MAX_CHUNK_SIZE);
     }
 
     @Test
     void deleteStudent_IdExists_DeleteStudent() {
 //        given
+        runCallbacksInTransaction();
         Long id = 2L;
-        given(studentRepository.existsById(anyLong())).willReturn(true);
+        given(studentRepository.deleteStudentById(anyLong())).willReturn(1);
 
 //        when
         underTest.deleteStudent(id);
 
 //        then
-        verify(studentRepository).deleteById(id);
+        verify(studentRepository).deleteStudentById(id);
+        verify(studentTableVersion).increment();
 
     }
 
     @Test
     void deleteStudent_IdNotExists_ThrowsStudentNotFoundException() {
 //        given
+        runCallbacksInTransaction();
         Long id = 2L;
 
-        given(studentRepository.existsById(anyLong())).willReturn(false);
+        given(studentRepository.deleteStudentById(anyLong())).willReturn(0);
 //        when
 //        then
         assertThatThrownBy(() -> underTest.deleteStudent(id)).isInstanceOf(
                 StudentNotFoundException.class
         ).hasMessageContaining("Student with id " + id + " does not exists");
 
+        verify(studentTableVersion, never()).increment();
+
+    }
+
+    @Test
+    void deleteStudents_ManyIds_DeletesInChunksAndReturnsCount() {
+//        given
+        runCallbacksInTransaction();
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= StudentService.MAX_CHUNK_SIZE + 1; id++) {
+            ids.add(id);
+        }
+        given(studentRepository.deleteStudentsByIdIn(anyCollection()))
+                .willReturn(StudentService.MAX_CHUNK_SIZE, 0);
+
+//        when
+        int deleted = underTest.deleteStudents(ids);
+
+//        then
+        verify(studentRepository, times(2)).deleteStudentsByIdIn(anyCollection());
+        verify(knownEmailFilter).recordDeletions(StudentService.MAX_CHUNK_SIZE);
+        assertThat(deleted).isEqualTo(StudentService.MAX_CHUNK_SIZE);
+    }
+
+    @Test
+    void deleteStudent_TransactionOpen_KeepsVersionUntilCommit() {
+//        given
+        runCallbacksInTransaction();
+        given(studentRepository.deleteStudentById(2L)).willAnswer(invocation -> {
+            // still inside the delete transaction
+            verifyNoInteractions(studentTableVersion, knownEmailFilter);
+            return 1;
+        });
+
+//        when
+        underTest.deleteStudent(2L);
+
+//        then
+        verify(transactionOperations).execute(any());
+        verify(studentTableVersion).increment();
+        verify(knownEmailFilter).recordDeletions(1);
+    }
+
+    @Test
+    void deleteStudents_TransactionOpen_KeepsVersionUntilCommit() {
+//        given
+        runCallbacksInTransaction();
+        given(studentRepository.deleteStudentsByIdIn(anyCollection())).willAnswer(invocation -> {
+            verifyNoInteractions(studentTableVersion, knownEmailFilter);
+            return 2;
+        });
+
+//        when
+        int deleted = underTest.deleteStudents(Arrays.asList(1L, 2L));
+
+//        then
+        assertThat(deleted).isEqualTo(2);
+        verify(studentTableVersion).increment();
+        verify(knownEmailFilter).recordDeletions(2);
+    }
 
+    /**
+     * Runs every callback given to the transaction operations, recording the
+     * status of each transaction.
+     */
+    private List<SimpleTransactionStatus> runCallbacksInTransaction() {
+        List<SimpleTransactionStatus> statuses = new ArrayList<>();
+        given(transactionOperations.execute(any())).willAnswer(invocation -> {
+            SimpleTransactionStatus status = new SimpleTransactionStatus();
+            statuses.add(status);
+            return invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(status);
+        });
+        return statuses;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,255 @@
+package com.example.demo.student.service;
+
+import com.example.demo.student.Gender;
+import com.example.demo.student.KnownEmailFilter;
+import com.example.demo.student.Student;
+import com.example.demo.student.StudentProperties;
+import com.example.demo.student.StudentRepository;
+import com.example.demo.student.StudentTableVersion;
+import com.example.demo.student.StudentWriteBatcher;
+import com.example.demo.student.exception.BadRequestException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+@Tag("Unit")
+class StudentWriteBatcherTest {
+
+    @Mock
+    private StudentRepository studentRepository;
+
+    @Mock
+    private KnownEmailFilter knownEmailFilter;
+
+    @Mock
+    private StudentTableVersion studentTableVersion;
+
+    @Mock
+    private TransactionOperations transactionOperations;
+
+    private final StudentProperties studentProperties = new StudentProperties();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private StudentWriteBatcher underTest;
+
+    @BeforeEach
+    void setUp() {
+        // batches only close once full, so every student of a test shares one
+        studentProperties.getGroupCommit().setMaxDelay(Duration.ofSeconds(10));
+        underTest = new StudentWriteBatcher(studentRepository, knownEmailFilter,
+                studentTableVersion, transactionOperations, studentProperties);
+        lenient().when(transactionOperations.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(new SimpleTransactionStatus()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        underTest.close();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void add_ConcurrentStudents_InsertsThemInOneBatch() throws Exception {
+//        given
+        List<Student> students = Arrays.asList(
+                new Student("Jamila", "jamila@gmail.com", Gender.FEMALE),
+                new Student("Reda", "reda@gmail.com", Gender.MALE),
+                new Student("Wafaa", "wafaa@gmail.com", Gender.FEMALE)
+        );
+        given(studentRepository.insertAll(anyCollection()))
+                .willAnswer(invocation -> new ArrayList<>(invocation.getArgument(0)));
+//        when
+        List<Future<Student>> results = addConcurrently(students);
+//        then
+        for (int i = 0; i < students.size(); i++) {
+            assertThat(results.get(i).get(5, TimeUnit.SECONDS)).isSameAs(students.get(i));
+        }
+        verify(studentRepository, times(1)).insertAll(anyCollection());
+        verify(studentTableVersion, times(1)).increment();
+    }
+
+    @Test
+    void add_EmailTaken_RejectsOnlyThatStudent() throws Exception {
+//        given
+        List<Student> students = Arrays.asList(
+                new Student("Jamila", "jamila@gmail.com", Gender.FEMALE),
+                new Student("Reda", "reda@gmail.com", Gender.MALE)
+        );
+        given(knownEmailFilter.mightContain(anyString())).willReturn(true);
+        given(studentRepository.selectExistingEmails(anyCollection()))
+                .willReturn(Collections.singleton("jamila@gmail.com"));
+        given(studentRepository.insertAll(anyCollection()))
+                .willAnswer(invocation -> new ArrayList<>(invocation.getArgument(0)));
+//        when
+        List<Future<Student>> results = addConcurrently(students);
+//        then
+        assertThatThrownBy(() -> results.get(0).get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(BadRequestException.class)
+                .hasMessageContaining("Email jamila@gmail.com taken");
+        assertThat(results.get(1).get(5, TimeUnit.SECONDS)).isSameAs(students.get(1));
+        verify(studentRepository, times(1)).selectExistingEmails(anyCollection());
+    }
+
+    @Test
+    void add_SameEmailTwiceInBatch_RejectsOneOfThem() throws Exception {
+//        given
+        List<Student> students = Arrays.asList(
+                new Student("Reda", "reda@gmail.com", Gender.MALE),
+                new Student("Reda bis", "reda@gmail.com", Gender.MALE)
+        );
+        given(studentRepository.insertAll(anyCollection()))
+                .willAnswer(invocation -> new ArrayList<>(invocation.getArgument(0)));
+//        when
+        List<Future<Student>> results = addConcurrently(students);
+//        then
+        int rejected = 0;
+        for (Future<Student> result : results) {
+            try {
+                result.get(5, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(BadRequestException.class);
+                rejected++;
+            }
+        }
+        assertThat(rejected).isEqualTo(1);
+    }
+
+    @Test
+    void add_BatchRejectedByDatabase_InsertsStudentsOneByOne() throws Exception {
+//        given
+        List<Student> students = Arrays.asList(
+                new Student("Jamila", "jamila@gmail.com", Gender.FEMALE),
+                new Student("Reda", "reda@gmail.com", Gender.MALE)
+        );
+        DataIntegrityViolationException duplicateEmail = new DataIntegrityViolationException(
+                "could not execute statement",
+                new SQLException("duplicate key value violates unique constraint", "23505"));
+        given(studentRepository.insertAll(anyCollection())).willThrow(duplicateEmail);
+        given(studentRepository.saveAndFlush(students.get(0))).willThrow(duplicateEmail);
+        given(studentRepository.saveAndFlush(students.get(1))).willReturn(students.get(1));
+//        when
+        List<Future<Student>> results = addConcurrently(students);
+//        then
+        assertThatThrownBy(() -> results.get(0).get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(BadRequestException.class);
+        assertThat(results.get(1).get(5, TimeUnit.SECONDS)).isSameAs(students.get(1));
+        verify(studentTableVersion, times(1)).increment();
+    }
+
+    @Test
+    void add_EmailCheckFails_InsertsStudentsOneByOne() throws Exception {
+//        given
+        List<Student> students = Arrays.asList(
+                new Student("Jamila", "jamila@gmail.com", Gender.FEMALE),
+                new Student("Reda", "reda@gmail.com", Gender.MALE)
+        );
+        given(knownEmailFilter.mightContain(anyString())).willReturn(true);
+        given(studentRepository.selectExistingEmails(anyCollection()))
+                .willThrow(new IllegalStateException("connection reset"));
+        given(studentRepository.saveAndFlush(any(Student.class)))
+                .willAnswer(invocation -> invocation.getArgument(0));
+//        when
+        List<Future<Student>> results = addConcurrently(students);
+//        then
+        for (int i = 0; i < students.size(); i++) {
+            assertThat(results.get(i).get(5, TimeUnit.SECONDS)).isSameAs(students.get(i));
+        }
+        verify(studentRepository, times(2)).saveAndFlush(any(Student.class));
+    }
+
+    @Test
+    void add_BatchThrowsError_FailsBatchAndKeepsWriting() throws Exception {
+//        given
+        Student first = new Student("Jamila", "jamila@gmail.com", Gender.FEMALE);
+        Student second = new Student("Reda", "reda@gmail.com", Gender.MALE);
+        given(studentRepository.insertAll(anyCollection()))
+                .willThrow(new AssertionError("boom"))
+                .willAnswer(invocation -> new ArrayList<>(invocation.getArgument(0)));
+        Future<Student> failed = addConcurrently(Collections.singletonList(first)).get(0);
+        assertThatThrownBy(() -> failed.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasRootCauseInstanceOf(AssertionError.class);
+//        when
+        Future<Student> result = addConcurrently(Collections.singletonList(second)).get(0);
+//        then
+        assertThat(result.get(5, TimeUnit.SECONDS)).isSameAs(second);
+    }
+
+    @Test
+    void add_BatchTooSlow_TimesOut() throws Exception {
+//        given
+        studentProperties.getGroupCommit().setMaxDelay(Duration.ofMillis(1));
+        studentProperties.getGroupCommit().setWriteTimeout(Duration.ofMillis(100));
+        CountDownLatch release = new CountDownLatch(1);
+        given(studentRepository.insertAll(anyCollection())).willAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return new ArrayList<>(invocation.getArgument(0));
+        });
+        Student student = new Student("Jamila", "jamila@gmail.com", Gender.FEMALE);
+//        when
+//        then
+        try {
+            assertThatThrownBy(() -> underTest.add(student))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("Timed out");
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void add_AfterClose_FailsFast() {
+//        given
+        underTest.close();
+//        when
+//        then
+        assertThatThrownBy(() -> underTest.add(new Student("Jamila", "jamila@gmail.com", Gender.FEMALE)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Student writer stopped");
+        verifyNoInteractions(transactionOperations);
+    }
+
+    /**
+     * Adds every student from a thread of its own, in a batch sized to take
+     * all of them.
+     */
+    private List<Future<Student>> addConcurrently(List<Student> students) {
+        studentProperties.getGroupCommit().setMaxBatchSize(students.size());
+        List<Future<Student>> results = new ArrayList<>(students.size());
+        for (Student student : students) {
+            results.add(callers.submit(() -> underTest.add(student)));
+        }
+        return results;
+    }
+}
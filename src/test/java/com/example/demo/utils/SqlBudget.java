@@ -0,0 +1,61 @@
+package com.example.demo.utils;
+
+import com.example.demo.config.SqlStatistics;
+
+import java.util.function.Supplier;
+
+/**
+ * Fails an operation that executes more SQL statements, or acquires more
+ * JDBC connections, than expected:
+ * <pre>
+ * List&lt;StudentView&gt; students = SqlBudget.atMost(1).get(() -&gt; underTest.getAllStudents(null));
+ * SqlBudget.atMost(2).maxConnections(1).run(() -&gt; underTest.addStudent(student));
+ * </pre>
+ */
+public class SqlBudget {
+
+    private final int maxStatements;
+    private final int maxConnections;
+
+    private SqlBudget(int maxStatements, int maxConnections) {
+        this.maxStatements = maxStatements;
+        this.maxConnections = maxConnections;
+    }
+
+    public static SqlBudget atMost(int maxStatements) {
+        return new SqlBudget(maxStatements, Integer.MAX_VALUE);
+    }
+
+    public SqlBudget maxConnections(int maxConnections) {
+        return new SqlBudget(maxStatements, maxConnections);
+    }
+
+    public void run(Runnable operation) {
+        get(() -> {
+            operation.run();
+            return null;
+        });
+    }
+
+    public <T> T get(Supplier<T> operation) {
+        SqlStatistics.start();
+        T result;
+        SqlStatistics statistics;
+        try {
+            result = operation.get();
+        } finally {
+            statistics = SqlStatistics.stop();
+        }
+        if (statistics.getStatementCount() > maxStatements) {
+            throw new AssertionError("Expected at most " + maxStatements
+                    + " SQL statements but " + statistics.getStatementCount()
+                    + " were executed: " + statistics.getStatements());
+        }
+        if (statistics.getConnectionCount() > maxConnections) {
+            throw new AssertionError("Expected at most " + maxConnections
+                    + " JDBC connections but " + statistics.getConnectionCount()
+                    + " were acquired for: " + statistics.getStatements());
+        }
+        return result;
+    }
+}